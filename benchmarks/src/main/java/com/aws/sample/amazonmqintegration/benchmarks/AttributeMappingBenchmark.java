@@ -0,0 +1,65 @@
+package com.aws.sample.amazonmqintegration.benchmarks;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import javax.jms.JMSException;
+import javax.jms.Message;
+
+import org.apache.activemq.command.ActiveMQTextMessage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.aws.sample.amazonmqintegration.core.HeaderCodec;
+
+/**
+ * The JMS headers and properties on their way through the JMSHeaders message attribute, in both directions.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AttributeMappingBenchmark {
+
+    @Param({ "0", "4", "16" })
+    public int properties;
+
+    private Message message;
+    private ByteBuffer encoded;
+
+    @Setup
+    public void setUp() throws JMSException {
+        message = Fixtures.jmsMessage(Fixtures.TEXT, 0, properties, 0);
+        encoded = Fixtures.HEADERS.encode(message);
+    }
+
+    @Benchmark
+    public ByteBuffer encode() throws JMSException {
+        return Fixtures.HEADERS.encode(message);
+    }
+
+    @Benchmark
+    public HeaderCodec.Headers decode() throws IOException {
+        return HeaderCodec.decode(encoded);
+    }
+
+    // the properties are set on a new message, as JmsSink does
+    @Benchmark
+    public Message decodeAndApply() throws IOException, JMSException {
+        Message target = new ActiveMQTextMessage();
+        HeaderCodec.decode(encoded).applyTo(target);
+        return target;
+    }
+}
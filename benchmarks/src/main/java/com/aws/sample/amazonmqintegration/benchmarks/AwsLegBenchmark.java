@@ -0,0 +1,107 @@
+package com.aws.sample.amazonmqintegration.benchmarks;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.jms.JMSException;
+import javax.jms.Message;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.aws.sample.amazonmqintegration.core.PayloadCodec;
+import com.aws.sample.amazonmqintegration.core.Sink;
+import com.aws.sample.amazonmqintegration.core.SnsSink;
+import com.aws.sample.amazonmqintegration.core.SqsSink;
+
+/**
+ * JMS to AWS: builds the SendMessageBatch entries and SNS publish requests with all their message attributes for messages
+ * received from the broker, and handles the results. One operation is one message.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AwsLegBenchmark {
+
+    private static final int BATCH_SIZE = SqsSink.SQS_MAX_BATCH_SIZE;
+
+    @Param({ "text", "bytes" })
+    public String type;
+
+    @Param({ "256", "16384" })
+    public int payloadBytes;
+
+    @Param({ "4" })
+    public int properties;
+
+    private List<Message> batch;
+    private List<Message> single;
+    private SqsSink sqsSink;
+    private SnsSink snsSink;
+    private final Counter completion = new Counter();
+
+    // counts, so the work of the sink cannot be optimized away
+    static class Counter implements Sink.Completion {
+
+        long forwarded;
+        long failed;
+
+        @Override
+        public void forwarded(Message msg) {
+            forwarded++;
+        }
+
+        @Override
+        public void failed(Message msg, String reason) {
+            failed++;
+        }
+
+        @Override
+        public void done() {
+        }
+    }
+
+    @Setup
+    public void setUp() throws JMSException {
+        batch = Fixtures.jmsMessages(type, payloadBytes, properties, BATCH_SIZE);
+        single = Collections.singletonList(batch.get(0));
+        sqsSink = new SqsSink(new InMemorySqs(), "https://sqs.local/benchmark", PayloadCodec.NONE, Fixtures.HEADERS);
+        snsSink = new SnsSink(new InMemorySns(), "arn:aws:sns:local:000000000000:benchmark", PayloadCodec.NONE, Fixtures.HEADERS);
+    }
+
+    @TearDown
+    public void tearDown() {
+        snsSink.close();
+        if (completion.failed > 0) {
+            throw new IllegalStateException(completion.failed + " messages failed");
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public long sqsSendMessageBatch() throws JMSException {
+        sqsSink.forward(batch, completion);
+        return completion.forwarded;
+    }
+
+    @Benchmark
+    public long snsPublish() throws JMSException {
+        snsSink.forward(single, completion);
+        return completion.forwarded;
+    }
+}
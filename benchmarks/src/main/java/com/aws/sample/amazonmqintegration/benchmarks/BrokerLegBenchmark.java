@@ -0,0 +1,109 @@
+package com.aws.sample.amazonmqintegration.benchmarks;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.jms.Connection;
+import javax.jms.JMSException;
+import javax.jms.Session;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.amazonaws.services.sqs.model.Message;
+import com.aws.sample.amazonmqintegration.core.HeaderCodec;
+import com.aws.sample.amazonmqintegration.core.JmsSink;
+import com.aws.sample.amazonmqintegration.core.MessageLog;
+import com.aws.sample.amazonmqintegration.core.Payload;
+import com.aws.sample.amazonmqintegration.core.PayloadCodec;
+
+/**
+ * SQS to JMS: creates the JMS message for a message received from SQS, and forwards whole batches to a topic of the embedded
+ * broker, which has no subscribers and drops them. One operation is one message.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BrokerLegBenchmark {
+
+    private static final int BATCH_SIZE = 10;
+
+    @Param({ "text", "bytes" })
+    public String type;
+
+    @Param({ "256", "16384" })
+    public int payloadBytes;
+
+    @Param({ "4" })
+    public int properties;
+
+    private EmbeddedBroker broker;
+    private Connection connection;
+    private Session session;
+    private JmsSink sink;
+    private List<Message> batch;
+    private long confirmed;
+    private long failed;
+
+    @Setup
+    public void setUp() throws Exception {
+        MessageLog.configure(Fixtures.configuration());
+        broker = new EmbeddedBroker("benchmarks");
+        connection = broker.connect();
+        session = connection.createSession(false, Session.AUTO_ACKNOWLEDGE);
+        sink = JmsSink.toTopic(connection, "BENCHMARK");
+        batch = Fixtures.sqsMessages(type, payloadBytes, properties, BATCH_SIZE);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        sink.close();
+        connection.close();
+        broker.stop();
+        if (failed > 0) {
+            throw new IllegalStateException(failed + " messages failed");
+        }
+    }
+
+    // what JmsSink does for every SQS message before it sends it
+    @Benchmark
+    public javax.jms.Message createMessage() throws JMSException, IOException {
+        Message msg = batch.get(0);
+        Payload payload = PayloadCodec.NONE.decode(msg.getBody(), null, null, attribute(msg, Payload.MESSAGE_TYPE),
+            msg.getMessageAttributes().containsKey(Payload.BINARY_BODY) ? msg.getMessageAttributes().get(Payload.BINARY_BODY).getBinaryValue() : null);
+        javax.jms.Message message = payload.toMessage(session);
+        message.setJMSCorrelationID(attribute(msg, "JMSCorrelationID"));
+        HeaderCodec.decode(msg.getMessageAttributes().get(HeaderCodec.HEADERS).getBinaryValue()).applyTo(message);
+        return message;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public long forwardBatch() {
+        sink.forward(batch, System.nanoTime(), forwarded -> {
+            confirmed += forwarded.size();
+            failed += batch.size() - forwarded.size();
+        });
+        return confirmed;
+    }
+
+    private static String attribute(Message msg, String name) {
+        com.amazonaws.services.sqs.model.MessageAttributeValue value = msg.getMessageAttributes().get(name);
+        return value != null ? value.getStringValue() : null;
+    }
+}
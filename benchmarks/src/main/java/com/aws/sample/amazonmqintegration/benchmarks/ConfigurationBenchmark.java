@@ -0,0 +1,65 @@
+package com.aws.sample.amazonmqintegration.benchmarks;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.aws.sample.amazonmqintegration.core.ConfigurationProvider;
+import com.aws.sample.amazonmqintegration.core.Route;
+import com.aws.sample.amazonmqintegration.core.ServiceConfiguration;
+import com.aws.sample.amazonmqintegration.core.route.Routes;
+
+/**
+ * Loading the configuration of a proxy running every route from Parameter Store, without the network, and comparing the
+ * parameters of every route as the route supervisor does on every refresh.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConfigurationBenchmark {
+
+    private InMemorySsm ssm;
+    private List<String> prefixes;
+    private ServiceConfiguration conf;
+    private List<Route> routes;
+
+    @Setup
+    public void setUp() {
+        ssm = new InMemorySsm("vm://benchmarks?create=false");
+        prefixes = ssm.prefixes();
+        conf = Fixtures.configuration();
+        routes = Routes.configured(conf);
+    }
+
+    // includes the lookup threads and the refresher a proxy starts once
+    @Benchmark
+    public ServiceConfiguration load() {
+        ConfigurationProvider provider = new ConfigurationProvider(prefixes, ssm).start();
+        provider.stop();
+        return provider.get();
+    }
+
+    @Benchmark
+    public int routeParameters() {
+        int parameters = 0;
+        for (Route route : routes) {
+            Map<String, String> routeParameters = Routes.parameters(conf, route);
+            parameters += routeParameters.size();
+        }
+        return parameters;
+    }
+}
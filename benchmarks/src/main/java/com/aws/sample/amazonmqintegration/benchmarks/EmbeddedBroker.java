@@ -0,0 +1,38 @@
+package com.aws.sample.amazonmqintegration.benchmarks;
+
+import javax.jms.Connection;
+import javax.jms.JMSException;
+
+import org.apache.activemq.ActiveMQConnectionFactory;
+import org.apache.activemq.broker.BrokerService;
+
+/**
+ * A non-persistent broker in this JVM. Connections use the vm transport, so the benchmarks include the marshalling of the
+ * ActiveMQ client but no network.
+ */
+public class EmbeddedBroker {
+
+    private final String name;
+    private final BrokerService broker = new BrokerService();
+
+    public EmbeddedBroker(String name) throws Exception {
+        this.name = name;
+        broker.setBrokerName(name);
+        broker.setPersistent(false);
+        broker.setUseJmx(false);
+        broker.setUseShutdownHook(false);
+        broker.start();
+        broker.waitUntilStarted();
+    }
+
+    public Connection connect() throws JMSException {
+        Connection connection = new ActiveMQConnectionFactory("vm://" + name + "?create=false").createConnection();
+        connection.start();
+        return connection;
+    }
+
+    public void stop() throws Exception {
+        broker.stop();
+        broker.waitUntilStopped();
+    }
+}
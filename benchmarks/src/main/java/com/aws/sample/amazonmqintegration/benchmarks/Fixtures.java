@@ -0,0 +1,108 @@
+package com.aws.sample.amazonmqintegration.benchmarks;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import javax.jms.JMSException;
+import javax.jms.Message;
+
+import org.apache.activemq.command.ActiveMQBytesMessage;
+import org.apache.activemq.command.ActiveMQMessage;
+import org.apache.activemq.command.ActiveMQQueue;
+import org.apache.activemq.command.ActiveMQTextMessage;
+
+import com.amazonaws.services.sqs.model.MessageAttributeValue;
+import com.aws.sample.amazonmqintegration.core.ConfigurationProvider;
+import com.aws.sample.amazonmqintegration.core.HeaderCodec;
+import com.aws.sample.amazonmqintegration.core.Payload;
+import com.aws.sample.amazonmqintegration.core.ServiceConfiguration;
+
+/**
+ * The messages the benchmarks forward, built like the ones the proxy receives from the broker and from SQS.
+ */
+public final class Fixtures {
+
+    public static final String TEXT = "text";
+    public static final HeaderCodec HEADERS = new HeaderCodec(Arrays.asList("Region"));
+
+    private Fixtures() {
+    }
+
+    public static String payload(int bytes) {
+        StringBuilder payload = new StringBuilder(bytes);
+        while (payload.length() < bytes) {
+            payload.append("{\"orderId\":").append(payload.length()).append(",\"status\":\"CONFIRMED\"}");
+        }
+        payload.setLength(bytes);
+        return payload.toString();
+    }
+
+    // a text or bytes message with a correlation id, a reply-to queue and the given number of properties
+    public static Message jmsMessage(String type, int payloadBytes, int properties, int index) throws JMSException {
+        ActiveMQMessage message;
+        if (TEXT.equals(type)) {
+            ActiveMQTextMessage textMessage = new ActiveMQTextMessage();
+            textMessage.setText(payload(payloadBytes));
+            message = textMessage;
+        } else {
+            ActiveMQBytesMessage bytesMessage = new ActiveMQBytesMessage();
+            bytesMessage.writeBytes(payload(payloadBytes).getBytes(StandardCharsets.UTF_8));
+            bytesMessage.storeContent();
+            message = bytesMessage;
+        }
+        message.setJMSCorrelationID("correlation-" + index);
+        message.setJMSReplyTo(new ActiveMQQueue("RESPONSE"));
+        message.setJMSType("Order");
+        if (properties > 0) {
+            message.setStringProperty("Region", "eu-central-1");
+        }
+        for (int i = 1; i < properties; i++) {
+            message.setIntProperty("Property" + i, i);
+        }
+        return message;
+    }
+
+    public static List<Message> jmsMessages(String type, int payloadBytes, int properties, int count) throws JMSException {
+        List<Message> messages = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            messages.add(jmsMessage(type, payloadBytes, properties, i));
+        }
+        return messages;
+    }
+
+    // the SQS message the opposite leg receives for the JMS message, with the attributes SqsSink sets
+    public static com.amazonaws.services.sqs.model.Message sqsMessage(Message jmsMessage, int index) throws JMSException {
+        com.amazonaws.services.sqs.model.Message sqsMessage = new com.amazonaws.services.sqs.model.Message()
+            .withMessageId("message-" + index)
+            .withReceiptHandle("receipt-" + index);
+        Payload payload = Payload.of(jmsMessage);
+        if (payload.isText()) {
+            sqsMessage.withBody(payload.text());
+        } else {
+            sqsMessage.withBody(payload.type());
+            sqsMessage.addMessageAttributesEntry(Payload.MESSAGE_TYPE, new MessageAttributeValue().withDataType("String").withStringValue(payload.type()));
+            sqsMessage.addMessageAttributesEntry(Payload.BINARY_BODY, new MessageAttributeValue().withDataType("Binary").withBinaryValue(payload.binary()));
+        }
+        sqsMessage.addMessageAttributesEntry("JMSCorrelationID", new MessageAttributeValue().withDataType("String").withStringValue(jmsMessage.getJMSCorrelationID()));
+        sqsMessage.addMessageAttributesEntry(HeaderCodec.HEADERS, new MessageAttributeValue().withDataType("Binary").withBinaryValue(HEADERS.encode(jmsMessage)));
+        return sqsMessage;
+    }
+
+    public static List<com.amazonaws.services.sqs.model.Message> sqsMessages(String type, int payloadBytes, int properties, int count) throws JMSException {
+        List<com.amazonaws.services.sqs.model.Message> messages = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            messages.add(sqsMessage(jmsMessage(type, payloadBytes, properties, i), i));
+        }
+        return messages;
+    }
+
+    // the configuration of a proxy running every route, read from the in-memory Parameter Store
+    public static ServiceConfiguration configuration() {
+        InMemorySsm ssm = new InMemorySsm("vm://benchmarks?create=false");
+        ConfigurationProvider provider = new ConfigurationProvider(ssm.prefixes(), ssm).start();
+        provider.stop();
+        return provider.get();
+    }
+}
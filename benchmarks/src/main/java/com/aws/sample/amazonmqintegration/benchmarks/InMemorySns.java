@@ -0,0 +1,22 @@
+package com.aws.sample.amazonmqintegration.benchmarks;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+
+import com.amazonaws.handlers.AsyncHandler;
+import com.amazonaws.services.sns.AbstractAmazonSNSAsync;
+import com.amazonaws.services.sns.model.PublishRequest;
+import com.amazonaws.services.sns.model.PublishResult;
+
+/**
+ * Accepts every publish right away, on the calling thread.
+ */
+public class InMemorySns extends AbstractAmazonSNSAsync {
+
+    @Override
+    public Future<PublishResult> publishAsync(PublishRequest request, AsyncHandler<PublishRequest, PublishResult> asyncHandler) {
+        PublishResult result = new PublishResult().withMessageId("in-memory");
+        asyncHandler.onSuccess(request, result);
+        return CompletableFuture.completedFuture(result);
+    }
+}
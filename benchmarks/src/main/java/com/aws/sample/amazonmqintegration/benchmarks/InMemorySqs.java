@@ -0,0 +1,47 @@
+package com.aws.sample.amazonmqintegration.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+
+import com.amazonaws.handlers.AsyncHandler;
+import com.amazonaws.services.sqs.AbstractAmazonSQSAsync;
+import com.amazonaws.services.sqs.model.DeleteMessageBatchRequest;
+import com.amazonaws.services.sqs.model.DeleteMessageBatchRequestEntry;
+import com.amazonaws.services.sqs.model.DeleteMessageBatchResult;
+import com.amazonaws.services.sqs.model.DeleteMessageBatchResultEntry;
+import com.amazonaws.services.sqs.model.SendMessageBatchRequest;
+import com.amazonaws.services.sqs.model.SendMessageBatchRequestEntry;
+import com.amazonaws.services.sqs.model.SendMessageBatchResult;
+import com.amazonaws.services.sqs.model.SendMessageBatchResultEntry;
+
+/**
+ * Accepts every send and delete right away, on the calling thread, so a benchmark measures the proxy and not the network.
+ * The results it builds are part of the measured allocations, as the SDK builds them as well.
+ */
+public class InMemorySqs extends AbstractAmazonSQSAsync {
+
+    @Override
+    public Future<SendMessageBatchResult> sendMessageBatchAsync(SendMessageBatchRequest request, AsyncHandler<SendMessageBatchRequest, SendMessageBatchResult> asyncHandler) {
+        List<SendMessageBatchResultEntry> successful = new ArrayList<>(request.getEntries().size());
+        for (SendMessageBatchRequestEntry entry : request.getEntries()) {
+            successful.add(new SendMessageBatchResultEntry().withId(entry.getId()).withMessageId(entry.getId()));
+        }
+        SendMessageBatchResult result = new SendMessageBatchResult().withSuccessful(successful).withFailed(Collections.emptyList());
+        asyncHandler.onSuccess(request, result);
+        return CompletableFuture.completedFuture(result);
+    }
+
+    @Override
+    public Future<DeleteMessageBatchResult> deleteMessageBatchAsync(DeleteMessageBatchRequest request, AsyncHandler<DeleteMessageBatchRequest, DeleteMessageBatchResult> asyncHandler) {
+        List<DeleteMessageBatchResultEntry> successful = new ArrayList<>(request.getEntries().size());
+        for (DeleteMessageBatchRequestEntry entry : request.getEntries()) {
+            successful.add(new DeleteMessageBatchResultEntry().withId(entry.getId()));
+        }
+        DeleteMessageBatchResult result = new DeleteMessageBatchResult().withSuccessful(successful).withFailed(Collections.emptyList());
+        asyncHandler.onSuccess(request, result);
+        return CompletableFuture.completedFuture(result);
+    }
+}
@@ -0,0 +1,112 @@
+package com.aws.sample.amazonmqintegration.benchmarks;
+
+import static com.aws.sample.amazonmqintegration.core.ServiceConfiguration.BROKER_ENDPOINT;
+import static com.aws.sample.amazonmqintegration.core.ServiceConfiguration.BROKER_PASSWORD;
+import static com.aws.sample.amazonmqintegration.core.ServiceConfiguration.BROKER_QUEUE;
+import static com.aws.sample.amazonmqintegration.core.ServiceConfiguration.BROKER_TOPIC;
+import static com.aws.sample.amazonmqintegration.core.ServiceConfiguration.BROKER_USER;
+import static com.aws.sample.amazonmqintegration.core.ServiceConfiguration.PROXY_CONFIGURATION;
+import static com.aws.sample.amazonmqintegration.core.ServiceConfiguration.SNS_ENDPOINT;
+import static com.aws.sample.amazonmqintegration.core.ServiceConfiguration.SQS_ENDPOINT;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.amazonaws.services.simplesystemsmanagement.AbstractAWSSimpleSystemsManagement;
+import com.amazonaws.services.simplesystemsmanagement.model.GetParametersByPathRequest;
+import com.amazonaws.services.simplesystemsmanagement.model.GetParametersByPathResult;
+import com.amazonaws.services.simplesystemsmanagement.model.Parameter;
+import com.aws.sample.amazonmqintegration.core.MessageLog;
+import com.aws.sample.amazonmqintegration.core.route.PointToPointOneWayCloudNativeRoute;
+import com.aws.sample.amazonmqintegration.core.route.PointToPointOneWayTraditionalRoute;
+import com.aws.sample.amazonmqintegration.core.route.PointToPointRequestResponseCloudNativeRoute;
+import com.aws.sample.amazonmqintegration.core.route.PointToPointRequestResponseTraditionalRoute;
+import com.aws.sample.amazonmqintegration.core.route.PublishSubscribeOneWayTraditionalRoute;
+import com.aws.sample.amazonmqintegration.core.route.PublishSubscribeRequestResponseCloudNativeRoute;
+import com.aws.sample.amazonmqintegration.core.route.PublishSubscribeRequestResponseTraditionalRoute;
+import com.aws.sample.amazonmqintegration.core.route.Routes;
+
+/**
+ * Parameter Store with the configuration of a proxy running every route, answered in pages like GetParametersByPath does:
+ * only the parameters directly below the path, at most MaxResults per call.
+ */
+public class InMemorySsm extends AbstractAWSSimpleSystemsManagement {
+
+    private static final String[] ROUTES = {
+        PointToPointOneWayTraditionalRoute.NAME,
+        PointToPointOneWayCloudNativeRoute.NAME,
+        PointToPointRequestResponseTraditionalRoute.NAME,
+        PointToPointRequestResponseCloudNativeRoute.NAME,
+        PublishSubscribeOneWayTraditionalRoute.NAME,
+        PublishSubscribeRequestResponseTraditionalRoute.NAME,
+        PublishSubscribeRequestResponseCloudNativeRoute.NAME
+    };
+
+    private final TreeMap<String, String> parameters = new TreeMap<>();
+
+    public InMemorySsm(String brokerEndpoint) {
+        parameters.put(BROKER_USER, "benchmark");
+        parameters.put(BROKER_PASSWORD, "benchmark");
+        parameters.put(BROKER_ENDPOINT, brokerEndpoint);
+        // the benchmarks must not measure the per-message log on stdout
+        parameters.put(MessageLog.LOG_LEVEL, "OFF");
+        for (String route : ROUTES) {
+            for (String name : new String[] { route, route + "-RESPONSE" }) {
+                parameters.put(BROKER_QUEUE + "/" + name, name);
+                parameters.put(BROKER_TOPIC + "/" + name, name);
+                parameters.put(SQS_ENDPOINT + "/" + name, "https://sqs.local/" + name);
+                parameters.put(SNS_ENDPOINT + "/" + name, "arn:aws:sns:local:000000000000:" + name);
+            }
+            String configuration = PROXY_CONFIGURATION + "/" + route;
+            parameters.put(configuration + Routes.SQS_BATCH_SIZE, "10");
+            parameters.put(configuration + Routes.CONSUMERS, "4");
+            parameters.put(configuration + Routes.AWS_IN_FLIGHT, "16");
+        }
+    }
+
+    public InMemorySsm with(String name, String value) {
+        parameters.put(name, value);
+        return this;
+    }
+
+    // the paths the parameters are stored below, as the proxies look them up
+    public List<String> prefixes() {
+        List<String> prefixes = new ArrayList<>();
+        for (String name : parameters.keySet()) {
+            String prefix = name.substring(0, name.lastIndexOf('/'));
+            if (!prefixes.contains(prefix)) {
+                prefixes.add(prefix);
+            }
+        }
+        return prefixes;
+    }
+
+    @Override
+    public GetParametersByPathResult getParametersByPath(GetParametersByPathRequest request) {
+        String path = request.getPath() + "/";
+        int maxResults = request.getMaxResults() != null ? request.getMaxResults() : 10;
+        int skip = request.getNextToken() != null ? Integer.parseInt(request.getNextToken()) : 0;
+
+        List<Parameter> page = new ArrayList<>(maxResults);
+        int matched = 0;
+        for (Map.Entry<String, String> parameter : parameters.tailMap(path).entrySet()) {
+            String name = parameter.getKey();
+            if (!name.startsWith(path)) {
+                break;
+            }
+            if (name.indexOf('/', path.length()) >= 0) {
+                continue;
+            }
+            if (matched++ < skip) {
+                continue;
+            }
+            if (page.size() == maxResults) {
+                return new GetParametersByPathResult().withParameters(page).withNextToken(Integer.toString(skip + maxResults));
+            }
+            page.add(new Parameter().withName(name).withType("String").withValue(parameter.getValue()));
+        }
+        return new GetParametersByPathResult().withParameters(page);
+    }
+}
@@ -0,0 +1,193 @@
+package com.aws.sample.amazonmqintegration.lambda;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import com.amazonaws.services.lambda.runtime.ClientContext;
+import com.amazonaws.services.lambda.runtime.CognitoIdentity;
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.amazonaws.services.lambda.runtime.events.SNSEvent;
+import com.amazonaws.services.lambda.runtime.events.SNSEvent.MessageAttribute;
+import com.amazonaws.services.lambda.runtime.events.SNSEvent.SNS;
+import com.amazonaws.services.lambda.runtime.events.SNSEvent.SNSRecord;
+import com.aws.sample.amazonmqintegration.core.BrokerConnector;
+import com.aws.sample.amazonmqintegration.core.ServiceConfiguration;
+import com.aws.sample.amazonmqintegration.loadtest.LocalBroker;
+import com.aws.sample.amazonmqintegration.loadtest.LocalParameterStore;
+
+/**
+ * Measures the cold start of a Lambda handler. Every run starts a new JVM, which creates the handler and invokes it with one SNS
+ * record, just like the Lambda runtime does in a new container. The harness runs locally and reproducibly: the handler gets its
+ * configuration from the in-memory Parameter Store of the load test and publishes to an embedded broker, which the harness starts
+ * once for all runs. Init therefore covers the handler without the network round trips to Parameter Store and Amazon MQ.
+ *
+ * Usage: ColdStartHarness <handler class> [runs] [JVM options for the runs...]
+ */
+public class ColdStartHarness {
+
+    private static final String RESULT = "cold-start:";
+    // the topics of both handlers
+    private static final List<String> DESTINATIONS = Arrays.asList("PUBLISH-SUBSCRIBE-ONE-WAY-CLOUD-NATIVE", "PUBLISH-SUBSCRIBE-REQUEST-RESPONSE-CLOUD-NATIVE");
+
+    public static void main(String... args) throws Exception {
+        if (args.length > 0 && args[0].equals("--run")) {
+            run(args[1], args[2]);
+            return;
+        }
+
+        String handlerClass = args[0];
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        // Maven passes all JVM options as one argument
+        List<String> jvmOptions = new ArrayList<>();
+        for (int i = 2; i < args.length; i++) {
+            for (String option : args[i].trim().split("\\s+")) {
+                if (!option.isEmpty()) {
+                    jvmOptions.add(option);
+                }
+            }
+        }
+
+        LocalBroker broker = new LocalBroker();
+        List<Long> jvms = new ArrayList<>();
+        List<Long> inits = new ArrayList<>();
+        List<Long> invocations = new ArrayList<>();
+        for (int i = 0; i < runs; i++) {
+            long[] result = runInNewJvm(handlerClass, broker.endpoint(), jvmOptions);
+            System.out.println(String.format("run %d: jvm %d ms, init %d ms, first invocation %d ms", i + 1, result[0], result[1], result[2]));
+            jvms.add(result[0]);
+            inits.add(result[1]);
+            invocations.add(result[2]);
+        }
+
+        System.out.println(String.format("median of %d runs: jvm %d ms, init %d ms, first invocation %d ms, total %d ms",
+                runs, median(jvms), median(inits), median(invocations), median(jvms) + median(inits) + median(invocations)));
+        System.exit(0);
+    }
+
+    private static long[] runInNewJvm(String handlerClass, String brokerEndpoint, List<String> jvmOptions) throws Exception {
+        List<String> command = new ArrayList<>();
+        command.add(System.getProperty("java.home") + "/bin/java");
+        command.addAll(jvmOptions);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(ColdStartHarness.class.getName());
+        command.add("--run");
+        command.add(handlerClass);
+        command.add(brokerEndpoint);
+
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        long[] result = null;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith(RESULT)) {
+                    String[] values = line.substring(RESULT.length()).split(",");
+                    result = new long[] {Long.parseLong(values[0]), Long.parseLong(values[1]), Long.parseLong(values[2])};
+                }
+            }
+        }
+
+        if (process.waitFor() != 0 || result == null) {
+            throw new IllegalStateException(String.format("cold start run of %s failed with exit code %d", handlerClass, process.exitValue()));
+        }
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void run(String handlerClass, String brokerEndpoint) throws Exception {
+        // from the start of the JVM until the handler class is loaded, that is what the Lambda runtime pays before our code runs
+        long jvmStart = ManagementFactory.getRuntimeMXBean().getStartTime();
+        long start = System.currentTimeMillis();
+        Class<?> type = Class.forName(handlerClass);
+
+        // like the handler's own lookup, the TLS and broker classes are loaded while the configuration is read
+        CompletableFuture<Void> warmUp = CompletableFuture.runAsync(BrokerConnector::warmUp);
+        ServiceConfiguration conf = new LocalParameterStore(brokerEndpoint, DESTINATIONS).configuration();
+        warmUp.join();
+        RequestHandler<SNSEvent, Void> handler = (RequestHandler<SNSEvent, Void>) type.getDeclaredConstructor(ServiceConfiguration.class).newInstance(conf);
+        long initialized = System.currentTimeMillis();
+
+        handler.handleRequest(event(), new HarnessContext());
+        long invoked = System.currentTimeMillis();
+
+        System.out.println(RESULT + (start - jvmStart) + "," + (initialized - start) + "," + (invoked - initialized));
+        System.exit(0);
+    }
+
+    private static SNSEvent event() {
+        SNS sns = new SNS()
+            .withMessageId("cold-start-" + System.currentTimeMillis())
+            .withMessage("cold start")
+            .withMessageAttributes(Collections.singletonMap("JMSCorrelationID", new MessageAttribute().withType("String").withValue("cold-start")));
+        return new SNSEvent().withRecords(Collections.singletonList(new SNSRecord().withSns(sns)));
+    }
+
+    private static long median(List<Long> values) {
+        List<Long> sorted = new ArrayList<>(values);
+        Collections.sort(sorted);
+        return sorted.get(sorted.size() / 2);
+    }
+
+    private static class HarnessContext implements Context {
+
+        public String getAwsRequestId() {
+            return "cold-start";
+        }
+
+        public String getLogGroupName() {
+            return "cold-start";
+        }
+
+        public String getLogStreamName() {
+            return "cold-start";
+        }
+
+        public String getFunctionName() {
+            return "cold-start";
+        }
+
+        public String getFunctionVersion() {
+            return "$LATEST";
+        }
+
+        public String getInvokedFunctionArn() {
+            return "cold-start";
+        }
+
+        public CognitoIdentity getIdentity() {
+            return null;
+        }
+
+        public ClientContext getClientContext() {
+            return null;
+        }
+
+        public int getRemainingTimeInMillis() {
+            return 300000;
+        }
+
+        public int getMemoryLimitInMB() {
+            return 512;
+        }
+
+        public LambdaLogger getLogger() {
+            return new LambdaLogger() {
+                public void log(String message) {
+                    System.out.println(message);
+                }
+
+                public void log(byte[] message) {
+                    System.out.println(new String(message));
+                }
+            };
+        }
+    }
+}
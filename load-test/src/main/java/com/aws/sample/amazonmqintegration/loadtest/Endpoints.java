@@ -0,0 +1,212 @@
+package com.aws.sample.amazonmqintegration.loadtest;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import javax.jms.Destination;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.MessageConsumer;
+import javax.jms.MessageProducer;
+import javax.jms.Session;
+import javax.jms.TextMessage;
+
+import org.apache.activemq.command.ActiveMQQueue;
+
+import com.amazonaws.services.sns.model.PublishRequest;
+import com.amazonaws.services.sqs.model.MessageAttributeValue;
+
+/**
+ * The clients and backends on both sides of the proxy: senders which start a message, backends which answer requests, and
+ * collectors which hand every message that arrives at its final destination to the recorder.
+ */
+public class Endpoints {
+
+    // every JMS collector and backend of a queue consumes with this many sessions, every SQS one polls with this many threads
+    private static final int CONSUMERS = 4;
+    private static final int SQS_MAX_BATCH_SIZE = 10;
+    private static final long SQS_WAIT_MILLIS = 1000;
+
+    private final LocalBroker broker;
+    private final LocalSqs sqs;
+    private final LocalSns sns;
+    private final LoadRecorder recorder;
+    private final String payload;
+
+    /**
+     * Sends the message with the given sequence number. A sender is only used by the one thread which generates its load.
+     */
+    public interface Sender {
+
+        void send(int sequence) throws Exception;
+    }
+
+    public Endpoints(LocalBroker broker, LocalSqs sqs, LocalSns sns, LoadRecorder recorder, int payloadBytes) {
+        this.broker = broker;
+        this.sqs = sqs;
+        this.sns = sns;
+        this.recorder = recorder;
+        this.payload = payload(payloadBytes);
+    }
+
+    public Sender toQueue(String queue, String replyTo) throws JMSException {
+        Session session = broker.connect().createSession(false, Session.AUTO_ACKNOWLEDGE);
+        return toDestination(session, session.createQueue(queue), replyTo != null ? session.createQueue(replyTo) : null);
+    }
+
+    public Sender toTopic(String topic, String replyTo) throws JMSException {
+        Session session = broker.connect().createSession(false, Session.AUTO_ACKNOWLEDGE);
+        return toDestination(session, session.createTopic(topic), replyTo != null ? session.createQueue(replyTo) : null);
+    }
+
+    private Sender toDestination(Session session, Destination destination, Destination replyTo) throws JMSException {
+        MessageProducer producer = session.createProducer(destination);
+        return sequence -> {
+            TextMessage message = session.createTextMessage(payload);
+            message.setJMSCorrelationID(LoadRecorder.correlationId(sequence));
+            if (replyTo != null) {
+                message.setJMSReplyTo(replyTo);
+            }
+            producer.send(message);
+        };
+    }
+
+    public Sender toSqs(String queueUrl) {
+        return sequence -> sqs.send(queueUrl, payload, sqsAttributes(LoadRecorder.correlationId(sequence), null));
+    }
+
+    public Sender toSns(String topicArn, String replyTo) {
+        return sequence -> {
+            PublishRequest request = new PublishRequest().withTopicArn(topicArn).withMessage(payload);
+            request.addMessageAttributesEntry("JMSCorrelationID", snsAttribute(LoadRecorder.correlationId(sequence)));
+            if (replyTo != null) {
+                request.addMessageAttributesEntry("JMSReplyTo", snsAttribute(replyTo));
+            }
+            sns.deliver(request);
+        };
+    }
+
+    public void collectFromQueue(String queue) throws JMSException {
+        for (int i = 0; i < CONSUMERS; i++) {
+            Session session = broker.connect().createSession(false, Session.AUTO_ACKNOWLEDGE);
+            session.createConsumer(session.createQueue(queue)).setMessageListener(this::collect);
+        }
+    }
+
+    // the proxy sends a response to the string of the JMSReplyTo destination of its request, e.g. to a queue named queue://NAME
+    public void collectReplies(String queue) throws JMSException {
+        collectFromQueue(new ActiveMQQueue(queue).toString());
+    }
+
+    // a topic hands every message to every subscriber, so it has only one
+    public void collectFromTopic(String topic) throws JMSException {
+        Session session = broker.connect().createSession(false, Session.AUTO_ACKNOWLEDGE);
+        session.createConsumer(session.createTopic(topic)).setMessageListener(this::collect);
+    }
+
+    private void collect(Message message) {
+        try {
+            recorder.delivered(message.getJMSCorrelationID());
+        } catch (JMSException e) {
+            System.out.println(String.format("failed to read correlation id (%s)", e.getMessage()));
+        }
+    }
+
+    public void collectFromSqs(String queueUrl) {
+        poll("collector", queueUrl, message -> recorder.delivered(stringValue(message.getMessageAttributes().get("JMSCorrelationID"))));
+    }
+
+    public void collectFromSns(String topicArn) {
+        sns.subscribe(topicArn, request -> recorder.delivered(snsValue(request, "JMSCorrelationID")));
+    }
+
+    // answers every request on the queue to its JMSReplyTo destination
+    public void respondFromQueue(String queue) throws JMSException {
+        for (int i = 0; i < CONSUMERS; i++) {
+            respond(broker.connect().createSession(false, Session.AUTO_ACKNOWLEDGE), queue, false);
+        }
+    }
+
+    public void respondFromTopic(String topic) throws JMSException {
+        respond(broker.connect().createSession(false, Session.AUTO_ACKNOWLEDGE), topic, true);
+    }
+
+    private void respond(Session session, String destination, boolean topic) throws JMSException {
+        MessageConsumer consumer = session.createConsumer(topic ? session.createTopic(destination) : session.createQueue(destination));
+        // the listener runs on the thread of the session, so it may use the session's producer
+        MessageProducer producer = session.createProducer(null);
+        consumer.setMessageListener(request -> {
+            try {
+                TextMessage response = session.createTextMessage(payload);
+                response.setJMSCorrelationID(request.getJMSCorrelationID());
+                producer.send(request.getJMSReplyTo(), response);
+            } catch (JMSException e) {
+                System.out.println(String.format("failed to respond (%s)", e.getMessage()));
+            }
+        });
+    }
+
+    // answers every request from SQS on the response queue, with the correlation id and reply-to of the request
+    public void respondFromSqs(String requestQueueUrl, String responseQueueUrl) {
+        poll("backend", requestQueueUrl, request -> sqs.send(responseQueueUrl, payload, sqsAttributes(
+            stringValue(request.getMessageAttributes().get("JMSCorrelationID")), stringValue(request.getMessageAttributes().get("JMSReplyTo")))));
+    }
+
+    public void respondFromSns(String topicArn, String responseQueueUrl) {
+        sns.subscribe(topicArn, request -> sqs.send(responseQueueUrl, payload, sqsAttributes(
+            snsValue(request, "JMSCorrelationID"), snsValue(request, "JMSReplyTo"))));
+    }
+
+    private void poll(String role, String queueUrl, Consumer<com.amazonaws.services.sqs.model.Message> handler) {
+        for (int i = 0; i < CONSUMERS; i++) {
+            Thread poller = new Thread(() -> {
+                try {
+                    while (true) {
+                        List<com.amazonaws.services.sqs.model.Message> messages = sqs.receive(queueUrl, SQS_MAX_BATCH_SIZE, SQS_WAIT_MILLIS);
+                        for (com.amazonaws.services.sqs.model.Message message : messages) {
+                            handler.accept(message);
+                            sqs.delete(queueUrl, message.getReceiptHandle());
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }, "sqs-" + role + "-" + i);
+            poller.setDaemon(true);
+            poller.start();
+        }
+    }
+
+    private static Map<String, MessageAttributeValue> sqsAttributes(String correlationId, String replyTo) {
+        Map<String, MessageAttributeValue> attributes = new HashMap<>();
+        attributes.put("JMSCorrelationID", new MessageAttributeValue().withDataType("String").withStringValue(correlationId));
+        if (replyTo != null) {
+            attributes.put("JMSReplyTo", new MessageAttributeValue().withDataType("String").withStringValue(replyTo));
+        }
+        return attributes;
+    }
+
+    private static com.amazonaws.services.sns.model.MessageAttributeValue snsAttribute(String value) {
+        return new com.amazonaws.services.sns.model.MessageAttributeValue().withDataType("String").withStringValue(value);
+    }
+
+    private static String stringValue(MessageAttributeValue value) {
+        return value != null ? value.getStringValue() : null;
+    }
+
+    private static String snsValue(PublishRequest request, String name) {
+        com.amazonaws.services.sns.model.MessageAttributeValue value = request.getMessageAttributes().get(name);
+        return value != null ? value.getStringValue() : null;
+    }
+
+    private static String payload(int bytes) {
+        StringBuilder payload = new StringBuilder(bytes);
+        while (payload.length() < bytes) {
+            payload.append("{\"orderId\":").append(payload.length()).append(",\"status\":\"CONFIRMED\"}");
+        }
+        payload.setLength(bytes);
+        return payload.toString();
+    }
+}
@@ -0,0 +1,140 @@
+package com.aws.sample.amazonmqintegration.loadtest;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import com.amazonaws.services.lambda.runtime.ClientContext;
+import com.amazonaws.services.lambda.runtime.CognitoIdentity;
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.amazonaws.services.lambda.runtime.events.SNSEvent;
+import com.amazonaws.services.lambda.runtime.events.SNSEvent.MessageAttribute;
+import com.amazonaws.services.lambda.runtime.events.SNSEvent.SNS;
+import com.amazonaws.services.lambda.runtime.events.SNSEvent.SNSRecord;
+import com.amazonaws.services.sns.model.MessageAttributeValue;
+import com.amazonaws.services.sns.model.PublishRequest;
+
+/**
+ * One warm Lambda container subscribed to an SNS topic: every message published to the topic becomes an event with one record,
+ * the events are handled one after the other, like a container handles its invocations. A failed invocation is retried twice,
+ * like Lambda retries asynchronous invocations. The handlers connect with a fixed client id, so there is only one container.
+ */
+public class LambdaContainer {
+
+    private static final int RETRIES = 2;
+
+    private final RequestHandler<SNSEvent, Void> handler;
+    private final BlockingQueue<PublishRequest> invocations = new LinkedBlockingQueue<>();
+
+    public LambdaContainer(RequestHandler<SNSEvent, Void> handler) {
+        this.handler = handler;
+        Thread thread = new Thread(this::run, "lambda-container");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public void invoke(PublishRequest request) {
+        invocations.add(request);
+    }
+
+    private void run() {
+        Context context = new ContainerContext();
+        try {
+            while (true) {
+                SNSEvent event = event(invocations.take());
+                for (int attempt = 0; attempt <= RETRIES; attempt++) {
+                    try {
+                        handler.handleRequest(event, context);
+                        break;
+                    } catch (RuntimeException e) {
+                        System.out.println(String.format("invocation failed, attempt %d (%s)", attempt + 1, e.getMessage()));
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // SNS hands binary attributes to Lambda base64 encoded
+    private static SNSEvent event(PublishRequest request) {
+        Map<String, MessageAttribute> attributes = new HashMap<>();
+        for (Map.Entry<String, MessageAttributeValue> attribute : request.getMessageAttributes().entrySet()) {
+            MessageAttributeValue value = attribute.getValue();
+            if ("Binary".equals(value.getDataType())) {
+                ByteBuffer binary = value.getBinaryValue().duplicate();
+                byte[] bytes = new byte[binary.remaining()];
+                binary.get(bytes);
+                attributes.put(attribute.getKey(), new MessageAttribute().withType("Binary").withValue(Base64.getEncoder().encodeToString(bytes)));
+            } else {
+                attributes.put(attribute.getKey(), new MessageAttribute().withType(value.getDataType()).withValue(value.getStringValue()));
+            }
+        }
+        SNS sns = new SNS()
+            .withTopicArn(request.getTopicArn())
+            .withMessageId(Long.toString(System.nanoTime()))
+            .withMessage(request.getMessage())
+            .withMessageAttributes(attributes);
+        return new SNSEvent().withRecords(Collections.singletonList(new SNSRecord().withSns(sns)));
+    }
+
+    private static class ContainerContext implements Context {
+
+        public String getAwsRequestId() {
+            return "load-test";
+        }
+
+        public String getLogGroupName() {
+            return "load-test";
+        }
+
+        public String getLogStreamName() {
+            return "load-test";
+        }
+
+        public String getFunctionName() {
+            return "load-test";
+        }
+
+        public String getFunctionVersion() {
+            return "$LATEST";
+        }
+
+        public String getInvokedFunctionArn() {
+            return "load-test";
+        }
+
+        public CognitoIdentity getIdentity() {
+            return null;
+        }
+
+        public ClientContext getClientContext() {
+            return null;
+        }
+
+        public int getRemainingTimeInMillis() {
+            return 300000;
+        }
+
+        public int getMemoryLimitInMB() {
+            return 512;
+        }
+
+        // the handlers log every record, Lambda ships that to CloudWatch outside of the container, so the load test drops it
+        public LambdaLogger getLogger() {
+            return new LambdaLogger() {
+                public void log(String message) {
+                }
+
+                public void log(byte[] message) {
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.aws.sample.amazonmqintegration.loadtest;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.aws.sample.amazonmqintegration.core.LatencyHistogram;
+
+/**
+ * Tracks every message of a load test by its sequence number, which travels as the correlation id "lt-&lt;sequence number&gt;".
+ * The latency of a message is measured from the time it was due to be sent, not from when the generator got to send it, so a
+ * generator which falls behind does not hide the delay. Only messages due within the measurement window are recorded.
+ */
+public class LoadRecorder {
+
+    private static final String PREFIX = "lt-";
+
+    // only grown while the scenario is set up, before the first message is sent
+    private volatile AtomicLongArray dueAt = new AtomicLongArray(0);
+    private volatile AtomicIntegerArray deliveries = new AtomicIntegerArray(0);
+    private final AtomicInteger sequence = new AtomicInteger();
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder duplicates = new LongAdder();
+    private final LongAdder sentInWindow = new LongAdder();
+    private final LongAdder deliveredInWindow = new LongAdder();
+    private volatile long windowStart;
+    private volatile long windowEnd;
+
+    // makes room for the given number of messages more
+    public void reserve(int messages) {
+        dueAt = new AtomicLongArray(dueAt.length() + messages);
+        deliveries = new AtomicIntegerArray(deliveries.length() + messages);
+    }
+
+    // the next sequence number, -1 once the recorder is full
+    public int next() {
+        int next = sequence.getAndIncrement();
+        return next < dueAt.length() ? next : -1;
+    }
+
+    public static String correlationId(int sequence) {
+        return PREFIX + sequence;
+    }
+
+    public void sent(int sequence, long dueAtNanos) {
+        dueAt.set(sequence, dueAtNanos);
+        sent.increment();
+        if (inWindow(dueAtNanos)) {
+            sentInWindow.increment();
+        }
+    }
+
+    public void delivered(String correlationId) {
+        if (correlationId == null || !correlationId.startsWith(PREFIX)) {
+            return;
+        }
+        int sequence = Integer.parseInt(correlationId.substring(PREFIX.length()));
+        if (deliveries.getAndIncrement(sequence) > 0) {
+            duplicates.increment();
+            return;
+        }
+        delivered.increment();
+        if (inWindow(System.nanoTime())) {
+            deliveredInWindow.increment();
+        }
+        long due = dueAt.get(sequence);
+        if (inWindow(due)) {
+            latency.recordSince(due);
+        }
+    }
+
+    private boolean inWindow(long nanos) {
+        return nanos - windowStart >= 0 && nanos - windowEnd < 0;
+    }
+
+    // the measurement window in System.nanoTime(), set before the first message is sent
+    public void window(long startNanos, long endNanos) {
+        windowStart = startNanos;
+        windowEnd = endNanos;
+    }
+
+    public long sent() {
+        return sent.sum();
+    }
+
+    public long delivered() {
+        return delivered.sum();
+    }
+
+    public long duplicates() {
+        return duplicates.sum();
+    }
+
+    public long sentInWindow() {
+        return sentInWindow.sum();
+    }
+
+    public long deliveredInWindow() {
+        return deliveredInWindow.sum();
+    }
+
+    public LatencyHistogram.Snapshot latency() {
+        return latency.snapshot();
+    }
+}
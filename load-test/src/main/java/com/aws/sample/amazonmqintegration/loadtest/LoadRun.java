@@ -0,0 +1,218 @@
+package com.aws.sample.amazonmqintegration.loadtest;
+
+import static com.aws.sample.amazonmqintegration.core.ServiceConfiguration.BROKER_QUEUE;
+import static com.aws.sample.amazonmqintegration.core.ServiceConfiguration.BROKER_TOPIC;
+import static com.aws.sample.amazonmqintegration.core.ServiceConfiguration.SNS_ENDPOINT;
+import static com.aws.sample.amazonmqintegration.core.ServiceConfiguration.SQS_ENDPOINT;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.amazonaws.services.lambda.runtime.events.SNSEvent;
+import com.aws.sample.amazonmqintegration.core.LatencyHistogram;
+import com.aws.sample.amazonmqintegration.core.ProxyContext;
+import com.aws.sample.amazonmqintegration.core.Route;
+import com.aws.sample.amazonmqintegration.core.ServiceConfiguration;
+import com.aws.sample.amazonmqintegration.core.route.RouteSupervisor;
+import com.aws.sample.amazonmqintegration.core.route.Routes;
+
+/**
+ * One scenario in this JVM: the broker, SQS, SNS and Parameter Store stand-ins, the proxy routes or Lambda handlers of the
+ * scenario and one load generator per sender. Every generator sends at the rate for the warm-up and the measurement window,
+ * then the run waits until every message arrived or the drain time is over.
+ */
+public class LoadRun {
+
+    private final ServiceConfiguration conf;
+    private final LocalSqs sqs;
+    private final LocalSns sns;
+    private final LoadRecorder recorder;
+    private final Endpoints endpoints;
+    private final List<Route> routes = new ArrayList<>();
+    private final List<Endpoints.Sender> senders = new ArrayList<>();
+    private final int rate;
+    private final long warmupSeconds;
+    private final long durationSeconds;
+
+    public LoadRun(Map<String, String> parameters, int rate, long warmupSeconds, long durationSeconds, int payloadBytes, long awsLatencyMillis) throws Exception {
+        this.rate = rate;
+        this.warmupSeconds = warmupSeconds;
+        this.durationSeconds = durationSeconds;
+
+        LocalBroker broker = new LocalBroker();
+        LocalParameterStore parameterStore = new LocalParameterStore(broker.endpoint(), Scenarios.destinations());
+        for (Map.Entry<String, String> parameter : parameters.entrySet()) {
+            parameterStore.with(parameter.getKey(), parameter.getValue());
+        }
+        this.conf = parameterStore.configuration();
+
+        // completes the calls of the proxy to SQS and SNS, and delivers the SNS messages
+        ScheduledExecutorService aws = Executors.newScheduledThreadPool(conf.getInt(ProxyContext.AWS_THREADS, 64), runnable -> {
+            Thread thread = new Thread(runnable, "local-aws");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.sqs = new LocalSqs(aws, awsLatencyMillis);
+        this.sns = new LocalSns(aws, awsLatencyMillis);
+        this.recorder = new LoadRecorder();
+        this.endpoints = new Endpoints(broker, sqs, sns, recorder, payloadBytes);
+    }
+
+    public ServiceConfiguration configuration() {
+        return conf;
+    }
+
+    public Endpoints endpoints() {
+        return endpoints;
+    }
+
+    public String queue(String name) {
+        return conf.get(BROKER_QUEUE + "/" + name);
+    }
+
+    public String topic(String name) {
+        return conf.get(BROKER_TOPIC + "/" + name);
+    }
+
+    public String queueUrl(String name) {
+        return conf.get(SQS_ENDPOINT + "/" + name);
+    }
+
+    public String topicArn(String name) {
+        return conf.get(SNS_ENDPOINT + "/" + name);
+    }
+
+    // the route runs in the proxy of this run, started once the scenario is set up
+    public void route(String name) {
+        routes.add(Routes.get(name));
+    }
+
+    public void lambda(RequestHandler<SNSEvent, Void> handler, String topicArn) {
+        sns.subscribe(topicArn, new LambdaContainer(handler)::invoke);
+    }
+
+    public void load(Endpoints.Sender sender) {
+        senders.add(sender);
+        recorder.reserve((int) (rate * (warmupSeconds + durationSeconds + 1)));
+    }
+
+    public Map<String, String> run(long drainSeconds) throws InterruptedException {
+        if (!routes.isEmpty()) {
+            // the same supervisor as the proxy main classes, just with the local stand-ins instead of the AWS clients
+            RouteSupervisor supervisor = new RouteSupervisor(new ProxyContext(conf, "LoadTestProxy", "LoadTestResponseProxy").withAwsClients(sqs, sns), c -> routes);
+            supervisor.apply(conf);
+        }
+        // the consumers and durable subscriptions register at the broker before the first message is sent
+        Thread.sleep(1000);
+
+        long start = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100);
+        long windowStart = start + TimeUnit.SECONDS.toNanos(warmupSeconds);
+        long windowEnd = windowStart + TimeUnit.SECONDS.toNanos(durationSeconds);
+        recorder.window(windowStart, windowEnd);
+
+        List<Thread> generators = new ArrayList<>();
+        for (Endpoints.Sender sender : senders) {
+            Thread generator = new Thread(() -> generate(sender, start, windowEnd), "load-generator-" + generators.size());
+            generator.start();
+            generators.add(generator);
+        }
+
+        LockSupport.parkNanos(windowStart - System.nanoTime());
+        Usage before = new Usage();
+        for (Thread generator : generators) {
+            generator.join();
+        }
+        Usage after = new Usage();
+
+        long drainUntil = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(drainSeconds);
+        while (recorder.delivered() < recorder.sent() && System.currentTimeMillis() < drainUntil) {
+            Thread.sleep(100);
+        }
+
+        LatencyHistogram.Snapshot latency = recorder.latency();
+        double seconds = (after.wallNanos - before.wallNanos) / 1e9;
+        Map<String, String> result = new LinkedHashMap<>();
+        result.put("offered", String.format(Locale.ROOT, "%.0f", recorder.sentInWindow() / seconds));
+        result.put("throughput", String.format(Locale.ROOT, "%.0f", recorder.deliveredInWindow() / seconds));
+        result.put("sent", Long.toString(recorder.sent()));
+        result.put("lost", Long.toString(recorder.sent() - recorder.delivered()));
+        result.put("duplicates", Long.toString(recorder.duplicates()));
+        result.put("p50", millis(latency.getP50Micros()));
+        result.put("p90", millis(latency.getP90Micros()));
+        result.put("p99", millis(latency.getP99Micros()));
+        result.put("p999", millis(latency.getP999Micros()));
+        result.put("max", millis(latency.getMaxMicros()));
+        result.put("cpu", String.format(Locale.ROOT, "%.0f", 100.0 * (after.cpuNanos - before.cpuNanos) / (after.wallNanos - before.wallNanos) / Runtime.getRuntime().availableProcessors()));
+        result.put("heap", Long.toString(after.peakHeapBytes / (1024 * 1024)));
+        result.put("gc", Long.toString(after.gcMillis - before.gcMillis));
+        return result;
+    }
+
+    // sends at the rate from start until end, catching up with a burst when a send took longer than the gap between two messages
+    private void generate(Endpoints.Sender sender, long start, long end) {
+        double intervalNanos = 1e9 / rate;
+        for (long i = 0;; i++) {
+            long due = start + (long) (i * intervalNanos);
+            if (due - end >= 0) {
+                return;
+            }
+            LockSupport.parkNanos(due - System.nanoTime());
+            int sequence = recorder.next();
+            if (sequence < 0) {
+                return;
+            }
+            recorder.sent(sequence, due);
+            try {
+                sender.send(sequence);
+            } catch (Exception e) {
+                // counted as lost, the message never arrives
+                System.out.println(String.format("failed to send message %d (%s)", sequence, e.getMessage()));
+            }
+        }
+    }
+
+    private static String millis(long micros) {
+        return String.format(Locale.ROOT, "%.1f", micros / 1000.0);
+    }
+
+    /**
+     * CPU time and collection time of the process so far and its peak heap since the last snapshot. The load test runs the
+     * broker and the stand-ins in the same process, so they are part of the numbers.
+     */
+    private static class Usage {
+
+        final long wallNanos = System.nanoTime();
+        final long cpuNanos = ((com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean()).getProcessCpuTime();
+        final long gcMillis;
+        final long peakHeapBytes;
+
+        Usage() {
+            long gc = 0;
+            for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+                gc += Math.max(0, collector.getCollectionTime());
+            }
+            gcMillis = gc;
+
+            long peak = 0;
+            for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                if (pool.getType() == MemoryType.HEAP) {
+                    peak += pool.getPeakUsage().getUsed();
+                    pool.resetPeakUsage();
+                }
+            }
+            peakHeapBytes = peak;
+        }
+    }
+}
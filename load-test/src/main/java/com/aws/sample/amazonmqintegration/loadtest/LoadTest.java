@@ -0,0 +1,162 @@
+package com.aws.sample.amazonmqintegration.loadtest;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Drives a load through the proxy routes and Lambda handlers against an embedded broker and local stand-ins for SQS, SNS and
+ * Parameter Store, so it needs no AWS account. Every scenario runs in a new JVM, so its CPU and heap are its own. The report
+ * lists per scenario the throughput, the latency percentiles from sending a message to its arrival at the final destination,
+ * the CPU usage, the peak heap and the collection time, and the run fails if a message got lost or the p99 exceeds --max-p99.
+ *
+ * Usage: LoadTest [--scenarios ALL|name,...] [--rate messages/s per sender] [--payload bytes] [--aws-latency ms]
+ *                 [--warmup s] [--duration s] [--drain s] [--set "NAME=VALUE ..."] [--max-p99 ms] [--report file]
+ *                 [--jvm-options "options of every scenario JVM"]
+ */
+public class LoadTest {
+
+    private static final String RESULT = "load-test:";
+    private static final String[] COLUMNS = { "offered", "throughput", "sent", "lost", "duplicates", "p50", "p90", "p99", "p999", "max", "cpu", "heap", "gc" };
+    private static final String ROW = "%-54s %8s %10s %9s %6s %10s %8s %8s %8s %8s %8s %4s %5s %6s";
+
+    public static void main(String... args) throws Exception {
+        Map<String, String> options = options(args);
+        if (options.containsKey("run")) {
+            run(options.get("run"), options);
+            return;
+        }
+
+        List<String> scenarios = Scenarios.names(options.getOrDefault("scenarios", "ALL"));
+        double maxP99 = Double.parseDouble(options.getOrDefault("max-p99", "0"));
+        // Maven passes all JVM options as one argument
+        List<String> jvmOptions = new ArrayList<>();
+        for (String option : options.getOrDefault("jvm-options", "").trim().split("\\s+")) {
+            if (!option.isEmpty()) {
+                jvmOptions.add(option);
+            }
+        }
+
+        List<String> report = new ArrayList<>();
+        report.add(String.format("rate %s messages/s per sender, payload %s bytes, AWS latency %s ms, warm-up %s s, measured %s s, parameters: %s",
+            options.getOrDefault("rate", "1000"), options.getOrDefault("payload", "1024"), options.getOrDefault("aws-latency", "10"),
+            options.getOrDefault("warmup", "10"), options.getOrDefault("duration", "60"), options.getOrDefault("set", "").trim().isEmpty() ? "defaults" : options.get("set").trim()));
+        report.add(String.format(ROW, "scenario", "offered", "messages/s", "sent", "lost", "duplicates", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "cpu%", "heap", "gc ms"));
+        System.out.println(report.get(0));
+
+        boolean passed = true;
+        for (String scenario : scenarios) {
+            System.out.println("running " + scenario);
+            Map<String, String> result = runInNewJvm(scenario, args, jvmOptions);
+            if (result == null) {
+                passed = false;
+                report.add(String.format("%-54s failed, see the output above", scenario));
+            } else {
+                Object[] row = new Object[COLUMNS.length + 1];
+                row[0] = scenario;
+                for (int i = 0; i < COLUMNS.length; i++) {
+                    row[i + 1] = result.get(COLUMNS[i]);
+                }
+                report.add(String.format(ROW, row));
+                if (Long.parseLong(result.get("lost")) > 0 || (maxP99 > 0 && Double.parseDouble(result.get("p99")) > maxP99)) {
+                    passed = false;
+                }
+            }
+        }
+
+        String file = options.getOrDefault("report", "load-test-report.txt");
+        try (PrintWriter writer = new PrintWriter(Files.newBufferedWriter(Paths.get(file), StandardCharsets.UTF_8))) {
+            for (String line : report) {
+                writer.println(line);
+            }
+        }
+        for (String line : report) {
+            System.out.println(line);
+        }
+        System.out.println(String.format("%s, report written to %s", passed ? "passed" : "failed", file));
+        System.exit(passed ? 0 : 1);
+    }
+
+    // --name value pairs, --set may be given more than once. Maven drops empty arguments, so an option may come without a value
+    private static Map<String, String> options(String... args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException(String.format("Unknown argument '%s'", args[i]));
+            }
+            String name = args[i].substring(2);
+            String value = i + 1 < args.length && !args[i + 1].startsWith("--") ? args[++i] : "";
+            options.merge(name, value, (first, second) -> first + " " + second);
+        }
+        return options;
+    }
+
+    private static Map<String, String> runInNewJvm(String scenario, String[] args, List<String> jvmOptions) throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>();
+        command.add(System.getProperty("java.home") + "/bin/java");
+        command.addAll(jvmOptions);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(LoadTest.class.getName());
+        command.add("--run");
+        command.add(scenario);
+        for (String arg : args) {
+            command.add(arg);
+        }
+
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        Map<String, String> result = null;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith(RESULT)) {
+                    result = new LinkedHashMap<>();
+                    for (String value : line.substring(RESULT.length()).split(",")) {
+                        result.put(value.substring(0, value.indexOf('=')), value.substring(value.indexOf('=') + 1));
+                    }
+                } else {
+                    System.out.println("  " + line);
+                }
+            }
+        }
+        return process.waitFor() == 0 ? result : null;
+    }
+
+    private static void run(String scenario, Map<String, String> options) throws Exception {
+        // the route settings to test, e.g. /PROD/INTEGRATION-APP/PROXY/POINT-TO-POINT-ONE-WAY-TRADITIONAL/CONSUMERS=8
+        Map<String, String> parameters = new HashMap<>();
+        for (String parameter : options.getOrDefault("set", "").trim().split("\\s+")) {
+            if (!parameter.isEmpty()) {
+                parameters.put(parameter.substring(0, parameter.indexOf('=')), parameter.substring(parameter.indexOf('=') + 1));
+            }
+        }
+
+        LoadRun run = new LoadRun(parameters,
+            Integer.parseInt(options.getOrDefault("rate", "1000")),
+            Long.parseLong(options.getOrDefault("warmup", "10")),
+            Long.parseLong(options.getOrDefault("duration", "60")),
+            Integer.parseInt(options.getOrDefault("payload", "1024")),
+            Long.parseLong(options.getOrDefault("aws-latency", "10")));
+        Scenarios.get(scenario).start(run);
+        Map<String, String> result = run.run(Long.parseLong(options.getOrDefault("drain", "30")));
+
+        StringBuilder line = new StringBuilder(RESULT);
+        for (Map.Entry<String, String> value : result.entrySet()) {
+            if (line.length() > RESULT.length()) {
+                line.append(',');
+            }
+            line.append(value.getKey()).append('=').append(value.getValue());
+        }
+        System.out.println(line);
+        System.exit(0);
+    }
+}
@@ -0,0 +1,43 @@
+package com.aws.sample.amazonmqintegration.loadtest;
+
+import javax.jms.Connection;
+import javax.jms.JMSException;
+
+import org.apache.activemq.ActiveMQConnectionFactory;
+import org.apache.activemq.broker.BrokerService;
+import org.apache.activemq.broker.TransportConnector;
+
+/**
+ * A non-persistent broker in this JVM, listening on a free TCP port. The proxy connects to it over OpenWire like it connects to
+ * Amazon MQ, just without TLS.
+ */
+public class LocalBroker {
+
+    private final BrokerService broker = new BrokerService();
+    private final String endpoint;
+
+    public LocalBroker() throws Exception {
+        broker.setBrokerName("load-test");
+        broker.setPersistent(false);
+        broker.setUseJmx(false);
+        broker.setUseShutdownHook(false);
+        TransportConnector connector = broker.addConnector("tcp://localhost:0");
+        broker.start();
+        broker.waitUntilStarted();
+        // the port the connector is bound to is only known once it started
+        this.endpoint = connector.getConnectUri().toString();
+    }
+
+    public String endpoint() {
+        return endpoint;
+    }
+
+    // the clients and backends of the load test send asynchronously, so the load generator is not held up by the broker
+    public Connection connect() throws JMSException {
+        ActiveMQConnectionFactory connectionFactory = new ActiveMQConnectionFactory(endpoint);
+        connectionFactory.setUseAsyncSend(true);
+        Connection connection = connectionFactory.createConnection();
+        connection.start();
+        return connection;
+    }
+}
@@ -0,0 +1,94 @@
+package com.aws.sample.amazonmqintegration.loadtest;
+
+import static com.aws.sample.amazonmqintegration.core.ServiceConfiguration.BROKER_ENDPOINT;
+import static com.aws.sample.amazonmqintegration.core.ServiceConfiguration.BROKER_PASSWORD;
+import static com.aws.sample.amazonmqintegration.core.ServiceConfiguration.BROKER_QUEUE;
+import static com.aws.sample.amazonmqintegration.core.ServiceConfiguration.BROKER_TOPIC;
+import static com.aws.sample.amazonmqintegration.core.ServiceConfiguration.BROKER_USER;
+import static com.aws.sample.amazonmqintegration.core.ServiceConfiguration.SNS_ENDPOINT;
+import static com.aws.sample.amazonmqintegration.core.ServiceConfiguration.SQS_ENDPOINT;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.amazonaws.services.simplesystemsmanagement.AbstractAWSSimpleSystemsManagement;
+import com.amazonaws.services.simplesystemsmanagement.model.GetParametersByPathRequest;
+import com.amazonaws.services.simplesystemsmanagement.model.GetParametersByPathResult;
+import com.amazonaws.services.simplesystemsmanagement.model.Parameter;
+import com.aws.sample.amazonmqintegration.core.ConfigurationProvider;
+import com.aws.sample.amazonmqintegration.core.MessageLog;
+import com.aws.sample.amazonmqintegration.core.ServiceConfiguration;
+
+/**
+ * Parameter Store with the queues, topics and endpoints of every route and both Lambda handlers on the local broker, SQS and
+ * SNS. The route settings are left to their defaults unless the load test sets them. Answered in pages like GetParametersByPath
+ * does: only the parameters directly below the path, at most MaxResults per call.
+ */
+public class LocalParameterStore extends AbstractAWSSimpleSystemsManagement {
+
+    private final TreeMap<String, String> parameters = new TreeMap<>();
+
+    public LocalParameterStore(String brokerEndpoint, List<String> names) {
+        parameters.put(BROKER_USER, "load-test");
+        parameters.put(BROKER_PASSWORD, "load-test");
+        parameters.put(BROKER_ENDPOINT, brokerEndpoint);
+        // failures are still logged, a log line per message would mostly measure stdout
+        parameters.put(MessageLog.LOG_LEVEL, MessageLog.Level.ERROR.name());
+        for (String route : names) {
+            for (String name : new String[] { route, route + "-RESPONSE" }) {
+                parameters.put(BROKER_QUEUE + "/" + name, name);
+                parameters.put(BROKER_TOPIC + "/" + name, name);
+                parameters.put(SQS_ENDPOINT + "/" + name, "http://sqs.local/" + name);
+                parameters.put(SNS_ENDPOINT + "/" + name, "arn:aws:sns:local:000000000000:" + name);
+            }
+        }
+    }
+
+    public LocalParameterStore with(String name, String value) {
+        parameters.put(name, value);
+        return this;
+    }
+
+    // the configuration the proxies would look up, read once
+    public ServiceConfiguration configuration() {
+        List<String> prefixes = new ArrayList<>();
+        for (String name : parameters.keySet()) {
+            String prefix = name.substring(0, name.lastIndexOf('/'));
+            if (!prefixes.contains(prefix)) {
+                prefixes.add(prefix);
+            }
+        }
+        ConfigurationProvider provider = new ConfigurationProvider(prefixes, this).start();
+        provider.stop();
+        return provider.get();
+    }
+
+    @Override
+    public GetParametersByPathResult getParametersByPath(GetParametersByPathRequest request) {
+        String path = request.getPath() + "/";
+        int maxResults = request.getMaxResults() != null ? request.getMaxResults() : 10;
+        int skip = request.getNextToken() != null ? Integer.parseInt(request.getNextToken()) : 0;
+
+        List<Parameter> page = new ArrayList<>(maxResults);
+        int matched = 0;
+        for (Map.Entry<String, String> parameter : parameters.tailMap(path).entrySet()) {
+            String name = parameter.getKey();
+            if (!name.startsWith(path)) {
+                break;
+            }
+            if (name.indexOf('/', path.length()) >= 0) {
+                continue;
+            }
+            if (matched++ < skip) {
+                continue;
+            }
+            if (page.size() == maxResults) {
+                return new GetParametersByPathResult().withParameters(page).withNextToken(Integer.toString(skip + maxResults));
+            }
+            page.add(new Parameter().withName(name).withType("String").withValue(parameter.getValue()));
+        }
+        return new GetParametersByPathResult().withParameters(page);
+    }
+}
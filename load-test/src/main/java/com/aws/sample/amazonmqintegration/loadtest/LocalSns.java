@@ -0,0 +1,61 @@
+package com.aws.sample.amazonmqintegration.loadtest;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import com.amazonaws.handlers.AsyncHandler;
+import com.amazonaws.services.sns.AbstractAmazonSNSAsync;
+import com.amazonaws.services.sns.model.PublishRequest;
+import com.amazonaws.services.sns.model.PublishResult;
+
+/**
+ * SNS in this JVM: a publish takes the configured latency and is then delivered to every subscriber of its topic on the
+ * executor. A topic without subscribers drops its messages, like SNS does.
+ */
+public class LocalSns extends AbstractAmazonSNSAsync {
+
+    private final Map<String, List<Consumer<PublishRequest>>> subscribers = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService executor;
+    private final long latencyMillis;
+    private final AtomicLong messageIds = new AtomicLong();
+
+    public LocalSns(ScheduledExecutorService executor, long latencyMillis) {
+        this.executor = executor;
+        this.latencyMillis = latencyMillis;
+    }
+
+    public LocalSns subscribe(String topicArn, Consumer<PublishRequest> subscriber) {
+        subscribers.computeIfAbsent(topicArn, arn -> new CopyOnWriteArrayList<>()).add(subscriber);
+        return this;
+    }
+
+    // publishes a message the way a client in the cloud would, without the latency of a call
+    public String deliver(PublishRequest request) {
+        for (Consumer<PublishRequest> subscriber : subscribers.getOrDefault(request.getTopicArn(), Collections.emptyList())) {
+            executor.execute(() -> subscriber.accept(request));
+        }
+        return "local-" + messageIds.incrementAndGet();
+    }
+
+    @Override
+    public Future<PublishResult> publishAsync(PublishRequest request, AsyncHandler<PublishRequest, PublishResult> asyncHandler) {
+        CompletableFuture<PublishResult> future = new CompletableFuture<>();
+        executor.schedule(() -> {
+            PublishResult result = new PublishResult().withMessageId(deliver(request));
+            if (asyncHandler != null) {
+                asyncHandler.onSuccess(request, result);
+            }
+            future.complete(result);
+        }, latencyMillis, TimeUnit.MILLISECONDS);
+        return future;
+    }
+}
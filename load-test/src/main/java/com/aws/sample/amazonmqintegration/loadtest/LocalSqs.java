@@ -0,0 +1,206 @@
+package com.aws.sample.amazonmqintegration.loadtest;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import com.amazonaws.AmazonWebServiceRequest;
+import com.amazonaws.handlers.AsyncHandler;
+import com.amazonaws.services.sqs.AbstractAmazonSQSAsync;
+import com.amazonaws.services.sqs.model.BatchResultErrorEntry;
+import com.amazonaws.services.sqs.model.DeleteMessageBatchRequest;
+import com.amazonaws.services.sqs.model.DeleteMessageBatchRequestEntry;
+import com.amazonaws.services.sqs.model.DeleteMessageBatchResult;
+import com.amazonaws.services.sqs.model.DeleteMessageBatchResultEntry;
+import com.amazonaws.services.sqs.model.Message;
+import com.amazonaws.services.sqs.model.MessageAttributeValue;
+import com.amazonaws.services.sqs.model.ReceiveMessageRequest;
+import com.amazonaws.services.sqs.model.ReceiveMessageResult;
+import com.amazonaws.services.sqs.model.SendMessageBatchRequest;
+import com.amazonaws.services.sqs.model.SendMessageBatchRequestEntry;
+import com.amazonaws.services.sqs.model.SendMessageBatchResult;
+import com.amazonaws.services.sqs.model.SendMessageBatchResultEntry;
+
+/**
+ * SQS in this JVM: a queue per queue URL, created on first use, with long polling, receipt handles and a visibility timeout, so
+ * a message the proxy does not delete is received a second time. Every call takes the configured latency, the asynchronous ones
+ * complete on the executor like the SDK completes them on its own.
+ */
+public class LocalSqs extends AbstractAmazonSQSAsync {
+
+    private static final long VISIBILITY_TIMEOUT_MILLIS = 30000;
+
+    private final Map<String, LocalQueue> queues = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService executor;
+    private final long latencyMillis;
+    private final AtomicLong messageIds = new AtomicLong();
+    private final AtomicLong receiptHandles = new AtomicLong();
+
+    private static class LocalQueue {
+
+        final LinkedBlockingDeque<Message> visible = new LinkedBlockingDeque<>();
+        // the received messages by their receipt handle, until they are deleted or their visibility timeout expires
+        final Map<String, InFlight> inFlight = new ConcurrentHashMap<>();
+    }
+
+    private static class InFlight {
+
+        final Message message;
+        final long visibleAgainAt;
+
+        InFlight(Message message, long visibleAgainAt) {
+            this.message = message;
+            this.visibleAgainAt = visibleAgainAt;
+        }
+    }
+
+    public LocalSqs(ScheduledExecutorService executor, long latencyMillis) {
+        this.executor = executor;
+        this.latencyMillis = latencyMillis;
+        executor.scheduleWithFixedDelay(this::expireVisibilityTimeouts, 1, 1, TimeUnit.SECONDS);
+    }
+
+    // sends a message the way a client in the cloud would, without the latency of a call
+    public String send(String queueUrl, String body, Map<String, MessageAttributeValue> attributes) {
+        String messageId = "local-" + messageIds.incrementAndGet();
+        queue(queueUrl).visible.add(new Message()
+            .withMessageId(messageId)
+            .withBody(body)
+            .withMessageAttributes(copy(attributes)));
+        return messageId;
+    }
+
+    // receives up to max messages, waiting at most waitMillis for the first one
+    public List<Message> receive(String queueUrl, int max, long waitMillis) throws InterruptedException {
+        LocalQueue queue = queue(queueUrl);
+        Message first = queue.visible.poll(waitMillis, TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return Collections.emptyList();
+        }
+        List<Message> messages = new ArrayList<>(max);
+        messages.add(first);
+        queue.visible.drainTo(messages, max - 1);
+
+        List<Message> received = new ArrayList<>(messages.size());
+        long visibleAgainAt = System.currentTimeMillis() + VISIBILITY_TIMEOUT_MILLIS;
+        for (Message message : messages) {
+            String receiptHandle = message.getMessageId() + "#" + receiptHandles.incrementAndGet();
+            queue.inFlight.put(receiptHandle, new InFlight(message, visibleAgainAt));
+            // every receive hands out its own attribute buffers, just like every SDK response does
+            received.add(new Message()
+                .withMessageId(message.getMessageId())
+                .withReceiptHandle(receiptHandle)
+                .withBody(message.getBody())
+                .withMessageAttributes(copy(message.getMessageAttributes())));
+        }
+        return received;
+    }
+
+    public boolean delete(String queueUrl, String receiptHandle) {
+        return queue(queueUrl).inFlight.remove(receiptHandle) != null;
+    }
+
+    @Override
+    public ReceiveMessageResult receiveMessage(ReceiveMessageRequest request) {
+        int max = request.getMaxNumberOfMessages() != null ? request.getMaxNumberOfMessages() : 1;
+        long waitMillis = request.getWaitTimeSeconds() != null ? TimeUnit.SECONDS.toMillis(request.getWaitTimeSeconds()) : 0;
+        try {
+            sleep(latencyMillis);
+            return new ReceiveMessageResult().withMessages(receive(request.getQueueUrl(), max, waitMillis));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new ReceiveMessageResult().withMessages(Collections.emptyList());
+        }
+    }
+
+    @Override
+    public Future<SendMessageBatchResult> sendMessageBatchAsync(SendMessageBatchRequest request, AsyncHandler<SendMessageBatchRequest, SendMessageBatchResult> asyncHandler) {
+        return complete(request, asyncHandler, () -> {
+            List<SendMessageBatchResultEntry> successful = new ArrayList<>(request.getEntries().size());
+            for (SendMessageBatchRequestEntry entry : request.getEntries()) {
+                String messageId = send(request.getQueueUrl(), entry.getMessageBody(), entry.getMessageAttributes());
+                successful.add(new SendMessageBatchResultEntry().withId(entry.getId()).withMessageId(messageId));
+            }
+            return new SendMessageBatchResult().withSuccessful(successful).withFailed(Collections.emptyList());
+        });
+    }
+
+    @Override
+    public Future<DeleteMessageBatchResult> deleteMessageBatchAsync(DeleteMessageBatchRequest request, AsyncHandler<DeleteMessageBatchRequest, DeleteMessageBatchResult> asyncHandler) {
+        return complete(request, asyncHandler, () -> {
+            List<DeleteMessageBatchResultEntry> successful = new ArrayList<>(request.getEntries().size());
+            List<BatchResultErrorEntry> failed = new ArrayList<>();
+            for (DeleteMessageBatchRequestEntry entry : request.getEntries()) {
+                if (delete(request.getQueueUrl(), entry.getReceiptHandle())) {
+                    successful.add(new DeleteMessageBatchResultEntry().withId(entry.getId()));
+                } else {
+                    // like SQS, after the visibility timeout the receipt handle is no longer valid
+                    failed.add(new BatchResultErrorEntry().withId(entry.getId()).withCode("ReceiptHandleIsInvalid").withSenderFault(true));
+                }
+            }
+            return new DeleteMessageBatchResult().withSuccessful(successful).withFailed(failed);
+        });
+    }
+
+    private <Q extends AmazonWebServiceRequest, R> Future<R> complete(Q request, AsyncHandler<Q, R> asyncHandler, Supplier<R> call) {
+        CompletableFuture<R> future = new CompletableFuture<>();
+        executor.schedule(() -> {
+            R result = call.get();
+            if (asyncHandler != null) {
+                asyncHandler.onSuccess(request, result);
+            }
+            future.complete(result);
+        }, latencyMillis, TimeUnit.MILLISECONDS);
+        return future;
+    }
+
+    private LocalQueue queue(String queueUrl) {
+        return queues.computeIfAbsent(queueUrl, url -> new LocalQueue());
+    }
+
+    private void expireVisibilityTimeouts() {
+        long now = System.currentTimeMillis();
+        for (LocalQueue queue : queues.values()) {
+            for (Iterator<InFlight> it = queue.inFlight.values().iterator(); it.hasNext();) {
+                InFlight inFlight = it.next();
+                if (inFlight.visibleAgainAt <= now) {
+                    it.remove();
+                    queue.visible.addFirst(inFlight.message);
+                }
+            }
+        }
+    }
+
+    private static Map<String, MessageAttributeValue> copy(Map<String, MessageAttributeValue> attributes) {
+        Map<String, MessageAttributeValue> copy = new HashMap<>();
+        if (attributes != null) {
+            for (Map.Entry<String, MessageAttributeValue> attribute : attributes.entrySet()) {
+                MessageAttributeValue value = attribute.getValue();
+                ByteBuffer binary = value.getBinaryValue();
+                copy.put(attribute.getKey(), new MessageAttributeValue()
+                    .withDataType(value.getDataType())
+                    .withStringValue(value.getStringValue())
+                    .withBinaryValue(binary != null ? binary.duplicate() : null));
+            }
+        }
+        return copy;
+    }
+
+    private static void sleep(long millis) throws InterruptedException {
+        if (millis > 0) {
+            Thread.sleep(millis);
+        }
+    }
+}
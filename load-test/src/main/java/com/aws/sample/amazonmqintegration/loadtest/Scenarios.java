@@ -0,0 +1,157 @@
+package com.aws.sample.amazonmqintegration.loadtest;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.aws.sample.amazonmqintegration.core.route.PointToPointOneWayCloudNativeRoute;
+import com.aws.sample.amazonmqintegration.core.route.PointToPointOneWayTraditionalRoute;
+import com.aws.sample.amazonmqintegration.core.route.PointToPointRequestResponseCloudNativeRoute;
+import com.aws.sample.amazonmqintegration.core.route.PointToPointRequestResponseTraditionalRoute;
+import com.aws.sample.amazonmqintegration.core.route.PublishSubscribeOneWayTraditionalRoute;
+import com.aws.sample.amazonmqintegration.core.route.PublishSubscribeRequestResponseCloudNativeRoute;
+import com.aws.sample.amazonmqintegration.core.route.PublishSubscribeRequestResponseTraditionalRoute;
+import com.aws.sample.amazonmqintegration.lambda.PublishSubscribeOneWayCloudNative;
+import com.aws.sample.amazonmqintegration.lambda.PublishSubscribeRequestResponseCloudNative;
+
+/**
+ * The scenarios of the load test: every route on its own, as its proxy main class runs it, all routes in one proxy, like the
+ * multi-route proxy, and both Lambda handlers. A scenario wires the senders, backends and collectors around what it tests.
+ */
+public final class Scenarios {
+
+    public static final String MULTI_ROUTE = "MULTI-ROUTE";
+    public static final String LAMBDA_ONE_WAY = "LAMBDA-PUBLISH-SUBSCRIBE-ONE-WAY-CLOUD-NATIVE";
+    public static final String LAMBDA_REQUEST_RESPONSE = "LAMBDA-PUBLISH-SUBSCRIBE-REQUEST-RESPONSE-CLOUD-NATIVE";
+
+    // the topic the one-way Lambda handler publishes to, it has no route of the plain Java proxy
+    static final String PUBLISH_SUBSCRIBE_ONE_WAY_CLOUD_NATIVE = "PUBLISH-SUBSCRIBE-ONE-WAY-CLOUD-NATIVE";
+
+    private static final String RESPONSE = "-RESPONSE";
+
+    /**
+     * Sets up a scenario before the load starts.
+     */
+    public interface Scenario {
+
+        void start(LoadRun run) throws Exception;
+    }
+
+    private static final Map<String, Scenario> ALL = new LinkedHashMap<>();
+    private static final List<String> ROUTES = new ArrayList<>();
+
+    static {
+        registerRoute(PointToPointOneWayTraditionalRoute.NAME, run -> {
+            String name = PointToPointOneWayTraditionalRoute.NAME;
+            run.route(name);
+            run.endpoints().collectFromSqs(run.queueUrl(name));
+            run.load(run.endpoints().toQueue(run.queue(name), null));
+        });
+        registerRoute(PointToPointOneWayCloudNativeRoute.NAME, run -> {
+            String name = PointToPointOneWayCloudNativeRoute.NAME;
+            run.route(name);
+            run.endpoints().collectFromQueue(run.queue(name));
+            run.load(run.endpoints().toSqs(run.queueUrl(name)));
+        });
+        registerRoute(PointToPointRequestResponseTraditionalRoute.NAME, run -> {
+            String name = PointToPointRequestResponseTraditionalRoute.NAME;
+            run.route(name);
+            run.endpoints().respondFromSqs(run.queueUrl(name), run.queueUrl(name + RESPONSE));
+            run.endpoints().collectReplies(run.queue(name + RESPONSE));
+            run.load(run.endpoints().toQueue(run.queue(name), run.queue(name + RESPONSE)));
+        });
+        registerRoute(PointToPointRequestResponseCloudNativeRoute.NAME, run -> {
+            String name = PointToPointRequestResponseCloudNativeRoute.NAME;
+            run.route(name);
+            run.endpoints().respondFromQueue(run.queue(name));
+            run.endpoints().collectFromSqs(run.queueUrl(name + RESPONSE));
+            run.load(run.endpoints().toSqs(run.queueUrl(name)));
+        });
+        registerRoute(PublishSubscribeOneWayTraditionalRoute.NAME, run -> {
+            String name = PublishSubscribeOneWayTraditionalRoute.NAME;
+            run.route(name);
+            run.endpoints().collectFromSns(run.topicArn(name));
+            run.load(run.endpoints().toTopic(run.topic(name), null));
+        });
+        registerRoute(PublishSubscribeRequestResponseTraditionalRoute.NAME, run -> {
+            String name = PublishSubscribeRequestResponseTraditionalRoute.NAME;
+            run.route(name);
+            run.endpoints().respondFromSns(run.topicArn(name), run.queueUrl(name + RESPONSE));
+            run.endpoints().collectReplies(run.queue(name + RESPONSE));
+            run.load(run.endpoints().toTopic(run.topic(name), run.queue(name + RESPONSE)));
+        });
+        // without the Lambda handler, the backends send their responses to the broker themselves
+        registerRoute(PublishSubscribeRequestResponseCloudNativeRoute.NAME, run -> {
+            String name = PublishSubscribeRequestResponseCloudNativeRoute.NAME;
+            run.route(name);
+            run.endpoints().collectFromSqs(run.queueUrl(name + RESPONSE));
+            run.load(run.endpoints().toQueue(run.queue(name + RESPONSE), null));
+        });
+
+        // every route gets the full rate, so the proxy forwards seven times the rate
+        register(MULTI_ROUTE, run -> {
+            for (String route : ROUTES) {
+                get(route).start(run);
+            }
+        });
+
+        register(LAMBDA_ONE_WAY, run -> {
+            String name = PUBLISH_SUBSCRIBE_ONE_WAY_CLOUD_NATIVE;
+            run.endpoints().collectFromTopic(run.topic(name));
+            run.lambda(new PublishSubscribeOneWayCloudNative(run.configuration()), run.topicArn(name));
+            run.load(run.endpoints().toSns(run.topicArn(name), null));
+        });
+        // the handler publishes the requests, the route forwards the responses
+        register(LAMBDA_REQUEST_RESPONSE, run -> {
+            String name = PublishSubscribeRequestResponseCloudNativeRoute.NAME;
+            run.route(name);
+            run.endpoints().respondFromTopic(run.topic(name));
+            run.endpoints().collectFromSqs(run.queueUrl(name + RESPONSE));
+            run.lambda(new PublishSubscribeRequestResponseCloudNative(run.configuration()), run.topicArn(name));
+            run.load(run.endpoints().toSns(run.topicArn(name), run.queue(name + RESPONSE)));
+        });
+    }
+
+    private Scenarios() {
+    }
+
+    private static void register(String name, Scenario scenario) {
+        ALL.put(name, scenario);
+    }
+
+    private static void registerRoute(String name, Scenario scenario) {
+        ROUTES.add(name);
+        register(name, scenario);
+    }
+
+    public static Scenario get(String name) {
+        Scenario scenario = ALL.get(name);
+        if (scenario == null) {
+            throw new IllegalArgumentException(String.format("Unknown scenario '%s'", name));
+        }
+        return scenario;
+    }
+
+    // ALL or a comma separated list of scenario names
+    public static List<String> names(String names) {
+        if (names.trim().equalsIgnoreCase("ALL")) {
+            return new ArrayList<>(ALL.keySet());
+        }
+        List<String> selected = new ArrayList<>();
+        for (String name : names.split(",")) {
+            if (!name.trim().isEmpty()) {
+                get(name.trim());
+                selected.add(name.trim());
+            }
+        }
+        return selected;
+    }
+
+    // the queues, topics and endpoints the parameter store holds
+    static List<String> destinations() {
+        List<String> names = new ArrayList<>(ROUTES);
+        names.add(PUBLISH_SUBSCRIBE_ONE_WAY_CLOUD_NATIVE);
+        return names;
+    }
+}
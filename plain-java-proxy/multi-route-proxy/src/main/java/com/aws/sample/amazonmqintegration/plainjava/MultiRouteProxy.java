@@ -0,0 +1,21 @@
+package com.aws.sample.amazonmqintegration.plainjava;
+
+import com.aws.sample.amazonmqintegration.core.ConfigurationProvider;
+import com.aws.sample.amazonmqintegration.core.ProxyContext;
+import com.aws.sample.amazonmqintegration.core.route.RouteSupervisor;
+import com.aws.sample.amazonmqintegration.core.route.Routes;
+
+public class MultiRouteProxy {
+
+    public static void main(String... args) throws Exception {
+        // we are using AWS Simple Systems Management Parameter Store to store our configuration in a central and secure place
+        final ConfigurationProvider provider = Routes.provider();
+
+        // all routes share the broker connections and the AWS clients of this process
+        RouteSupervisor supervisor = new RouteSupervisor(new ProxyContext(provider.get(), "IntegrationProxy", "IntegrationResponseProxy"), Routes::configured);
+        supervisor.apply(provider.get());
+
+        // routes are added, removed or restarted as soon as their parameters change, all other routes keep running
+        provider.onChange(supervisor::apply);
+    }
+}
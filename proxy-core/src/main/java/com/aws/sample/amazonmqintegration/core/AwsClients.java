@@ -0,0 +1,49 @@
+package com.aws.sample.amazonmqintegration.core;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.Executors;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.AmazonServiceException;
+import com.amazonaws.ClientConfiguration;
+import com.amazonaws.services.sns.AmazonSNSAsync;
+import com.amazonaws.services.sns.AmazonSNSAsyncClientBuilder;
+import com.amazonaws.services.sqs.AmazonSQSAsync;
+import com.amazonaws.services.sqs.AmazonSQSAsyncClientBuilder;
+
+public final class AwsClients {
+
+    // the error codes SQS, SNS and KMS (for encrypted queues and topics) answer with when they throttle
+    private static final Set<String> THROTTLING = new HashSet<>(Arrays.asList(
+        "Throttling", "ThrottlingException", "ThrottledException", "RequestThrottled", "RequestLimitExceeded", "KMSThrottlingException"));
+
+    private AwsClients() {
+    }
+
+    // the async clients complete requests on their own executor, the in-flight windows of the sources bound how many of them are busy
+    public static AmazonSQSAsync sqs(int threads) {
+        return AmazonSQSAsyncClientBuilder.standard()
+            .withClientConfiguration(new ClientConfiguration().withMaxConnections(threads))
+            .withExecutorFactory(() -> Executors.newFixedThreadPool(threads))
+            .build();
+    }
+
+    public static AmazonSNSAsync sns(int threads) {
+        return AmazonSNSAsyncClientBuilder.standard()
+            .withClientConfiguration(new ClientConfiguration().withMaxConnections(threads))
+            .withExecutorFactory(() -> Executors.newFixedThreadPool(threads))
+            .build();
+    }
+
+    // throttling, errors of the service itself and errors on the way to it, e.g. a timeout, may go away when retried. Anything else,
+    // e.g. an invalid parameter, a missing permission or a message which is too large, fails again
+    public static boolean retryable(Exception e) {
+        if (e instanceof AmazonServiceException) {
+            AmazonServiceException serviceException = (AmazonServiceException) e;
+            return serviceException.getStatusCode() >= 500 || serviceException.getStatusCode() == 429 || THROTTLING.contains(serviceException.getErrorCode());
+        }
+        return e instanceof AmazonClientException;
+    }
+}
@@ -0,0 +1,18 @@
+package com.aws.sample.amazonmqintegration.core;
+
+import java.io.IOException;
+
+/**
+ * Keeps payloads which are too large for SQS and SNS. Both legs of a route must use the same store, the message only carries the
+ * reference.
+ */
+public interface BlobStore {
+
+    String put(byte[] payload) throws IOException;
+
+    byte[] get(String reference) throws IOException;
+
+    // stops what the store runs in the background
+    default void close() {
+    }
+}
@@ -0,0 +1,118 @@
+package com.aws.sample.amazonmqintegration.core;
+
+import static com.aws.sample.amazonmqintegration.core.ServiceConfiguration.BROKER_ENDPOINT;
+import static com.aws.sample.amazonmqintegration.core.ServiceConfiguration.BROKER_PASSWORD;
+import static com.aws.sample.amazonmqintegration.core.ServiceConfiguration.BROKER_STANDBY_ENDPOINT;
+import static com.aws.sample.amazonmqintegration.core.ServiceConfiguration.BROKER_USER;
+import static com.aws.sample.amazonmqintegration.core.ServiceConfiguration.PROXY_CONFIGURATION;
+
+import javax.jms.Connection;
+import javax.jms.JMSException;
+import javax.net.ssl.SSLContext;
+
+import org.apache.activemq.ActiveMQConnection;
+import org.apache.activemq.ActiveMQSslConnectionFactory;
+import org.apache.activemq.management.JMSStatsImpl;
+import org.apache.activemq.pool.PooledConnectionFactory;
+import org.apache.activemq.transport.Transport;
+
+public class BrokerConnector {
+
+    public static final String BROKER_CONNECTIONS = PROXY_CONFIGURATION + "/BROKER-CONNECTIONS";
+
+    private final ActiveMQSslConnectionFactory connFact;
+    private final PooledConnectionFactory pooledConnFact;
+    private final FailoverMonitor failoverMonitor = new FailoverMonitor();
+    private final String user;
+    private final String password;
+
+    public BrokerConnector(ServiceConfiguration conf) {
+        this(conf, -1);
+    }
+
+    // with a failover timeout a send fails instead of blocking until the broker is reachable again
+    public BrokerConnector(ServiceConfiguration conf, long failoverTimeout) {
+        // every connection of the factory, including the ones the pool creates, reports its failovers and when it is closed
+        connFact = new ActiveMQSslConnectionFactory(brokerUrl(conf.get(BROKER_ENDPOINT), conf.get(BROKER_STANDBY_ENDPOINT), failoverTimeout)) {
+
+            @Override
+            protected ActiveMQConnection createActiveMQConnection(Transport transport, JMSStatsImpl stats) throws Exception {
+                FailoverMonitor.Listener listener = failoverMonitor.listener();
+                ActiveMQConnection connection = new ActiveMQConnection(transport, getClientIdGenerator(), getConnectionIdGenerator(), stats) {
+
+                    @Override
+                    public void close() throws JMSException {
+                        try {
+                            super.close();
+                        } finally {
+                            listener.closed();
+                        }
+                    }
+                };
+                connection.addTransportListener(listener);
+                return connection;
+            }
+        };
+        connFact.setConnectResponseTimeout(10000);
+        user = conf.get(BROKER_USER);
+        password = conf.get(BROKER_PASSWORD);
+
+        // producers borrow their connection, session and producer from the pool, a failed connection is replaced on next use
+        pooledConnFact = new PooledConnectionFactory(connFact);
+        pooledConnFact.setMaxConnections(conf.getInt(BROKER_CONNECTIONS, 2));
+        pooledConnFact.setReconnectOnException(true);
+    }
+
+    // the failover transport reconnects to the active or the standby broker and replays the messages and
+    // acknowledgements the broker has not confirmed yet, so a broker restart no longer ends the process
+    static String brokerUrl(String endpoint, String standbyEndpoint, long failoverTimeout) {
+        StringBuilder url = new StringBuilder("failover:(").append(endpoint);
+        if (standbyEndpoint != null) {
+            url.append(',').append(standbyEndpoint);
+        }
+        url.append(")?randomize=false&trackMessages=true&initialReconnectDelay=100&maxReconnectDelay=5000");
+        if (failoverTimeout >= 0) {
+            url.append("&timeout=").append(failoverTimeout);
+        }
+        return url.toString();
+    }
+
+    // loads the TLS and OpenWire classes and initializes the default SSL context, which otherwise happens during the first connect,
+    // so a cold start can do it while it is still waiting for its configuration
+    public static void warmUp() {
+        try {
+            SSLContext.getDefault();
+            Class.forName("org.apache.activemq.ActiveMQConnection");
+            Class.forName("org.apache.activemq.transport.failover.FailoverTransportFactory");
+            Class.forName("org.apache.activemq.transport.tcp.SslTransportFactory");
+            Class.forName("org.apache.activemq.openwire.v12.MarshallerFactory");
+        } catch (Exception e) {
+            System.out.println(String.format("failed to warm up the broker connector (%s)", e.getMessage()));
+        }
+    }
+
+    // consumers keep their own connection, durable subscriptions are bound to the client id
+    public Connection connect(String clientId) throws JMSException {
+        Connection conn = connFact.createConnection(user, password);
+        conn.setClientID(clientId);
+        conn.start();
+        return conn;
+    }
+
+    // without a client id, for producers which need the ActiveMQ client itself
+    public Connection connect() throws JMSException {
+        Connection conn = connFact.createConnection(user, password);
+        conn.start();
+        return conn;
+    }
+
+    public Connection pooled() throws JMSException {
+        Connection conn = pooledConnFact.createConnection(user, password);
+        conn.start();
+        return conn;
+    }
+
+    public FailoverMonitor failoverMonitor() {
+        return failoverMonitor;
+    }
+}
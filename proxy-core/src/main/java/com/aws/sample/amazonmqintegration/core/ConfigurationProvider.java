@@ -0,0 +1,265 @@
+package com.aws.sample.amazonmqintegration.core;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import com.amazonaws.services.simplesystemsmanagement.AWSSimpleSystemsManagement;
+import com.amazonaws.services.simplesystemsmanagement.AWSSimpleSystemsManagementClientBuilder;
+import com.amazonaws.services.simplesystemsmanagement.model.GetParametersByPathRequest;
+import com.amazonaws.services.simplesystemsmanagement.model.GetParametersByPathResult;
+import com.amazonaws.services.simplesystemsmanagement.model.Parameter;
+
+/**
+ * Reads the parameters below a set of prefixes from Parameter Store and keeps them up to date in the background. With the
+ * CONFIGURATION_CACHE_FILE environment variable the parameters are also kept in that file, so a restart starts from the file
+ * and only refreshes it in the background once it is older than CONFIGURATION_TTL_SECONDS (default 300). Listeners are told
+ * about every refresh which changed a parameter. A proxy which never applies changes reads the parameters once with read().
+ */
+public class ConfigurationProvider {
+
+    public static final String CACHE_FILE = "CONFIGURATION_CACHE_FILE";
+    public static final String TTL_SECONDS = "CONFIGURATION_TTL_SECONDS";
+
+    private static final String CACHED_PREFIXES = "#prefixes";
+    private static final int MAX_PARALLEL_LOOKUPS = 8;
+
+    private final List<String> prefixes;
+    private final long ttlMillis;
+    private final Path cacheFile;
+    private ScheduledExecutorService refresher;
+    private final List<Consumer<ServiceConfiguration>> listeners = new CopyOnWriteArrayList<>();
+    private AWSSimpleSystemsManagement ssmClient;
+    private volatile Map<String, String> values;
+    private volatile ServiceConfiguration current;
+
+    public ConfigurationProvider(List<String> prefixes) {
+        this(prefixes, null);
+    }
+
+    // without a client, the default client is created on the first lookup
+    public ConfigurationProvider(List<String> prefixes, AWSSimpleSystemsManagement ssmClient) {
+        this(prefixes, ssmClient,
+            System.getenv(CACHE_FILE) != null ? Paths.get(System.getenv(CACHE_FILE)) : null,
+            TimeUnit.SECONDS.toMillis(System.getenv(TTL_SECONDS) != null ? Long.parseLong(System.getenv(TTL_SECONDS)) : 300));
+    }
+
+    ConfigurationProvider(List<String> prefixes, AWSSimpleSystemsManagement ssmClient, Path cacheFile, long ttlMillis) {
+        this.prefixes = prefixes;
+        this.ssmClient = ssmClient;
+        this.cacheFile = cacheFile;
+        this.ttlMillis = ttlMillis;
+    }
+
+    // reads the parameters once and starts no refresher, from the cache file while it is younger than the TTL. An older cache
+    // file is only used when Parameter Store can not be read
+    public ServiceConfiguration read() {
+        Map<String, String> cached = readCache();
+        if (cached != null && cacheAge() < ttlMillis) {
+            values = cached;
+            current = new ServiceConfiguration(cached);
+            return current;
+        }
+
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            if (cached == null) {
+                throw e;
+            }
+            System.out.println(String.format("failed to read the configuration, using the cached one (%s)", e.getMessage()));
+            values = cached;
+            current = new ServiceConfiguration(cached);
+        }
+        return current;
+    }
+
+    // blocks on Parameter Store only if there is no cached configuration yet
+    public synchronized ConfigurationProvider start() {
+        long age = Long.MAX_VALUE;
+        Map<String, String> cached = readCache();
+        if (cached != null) {
+            values = cached;
+            current = new ServiceConfiguration(cached);
+            age = cacheAge();
+        } else {
+            refresh();
+        }
+
+        long firstRefresh = age < ttlMillis ? ttlMillis - age : 0;
+        refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "configuration-refresher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        refresher.scheduleWithFixedDelay(this::refreshQuietly, cached != null ? firstRefresh : ttlMillis, ttlMillis, TimeUnit.MILLISECONDS);
+        return this;
+    }
+
+    // stops refreshing, the last configuration stays available
+    public synchronized void stop() {
+        if (refresher != null) {
+            refresher.shutdownNow();
+        }
+    }
+
+    public ServiceConfiguration get() {
+        return current;
+    }
+
+    // called on the refresher thread
+    public void onChange(Consumer<ServiceConfiguration> listener) {
+        listeners.add(listener);
+    }
+
+    private void refreshQuietly() {
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            // e.g. throttled by Parameter Store, we keep the configuration we have and try again after the next TTL
+            System.out.println(String.format("failed to refresh the configuration (%s)", e.getMessage()));
+        }
+    }
+
+    private void refresh() {
+        Map<String, String> previous = values;
+        Map<String, String> refreshed = lookup();
+        values = refreshed;
+        current = new ServiceConfiguration(refreshed);
+        writeCache(refreshed);
+
+        if (previous != null && !previous.equals(refreshed)) {
+            for (Consumer<ServiceConfiguration> listener : listeners) {
+                listener.accept(current);
+            }
+        }
+    }
+
+    private synchronized Map<String, String> lookup() {
+        if (ssmClient == null) {
+            // using automatic region detection as described here: https://docs.aws.amazon.com/sdk-for-java/v1/developer-guide/java-dg-region-selection.html
+            ssmClient = AWSSimpleSystemsManagementClientBuilder.standard().build();
+        }
+
+        // the prefixes are independent of each other, so a cold start only waits for the slowest of them
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(prefixes.size(), MAX_PARALLEL_LOOKUPS));
+        try {
+            List<Future<Map<String, String>>> lookups = new ArrayList<>(prefixes.size());
+            for (String prefix : prefixes) {
+                lookups.add(executor.submit(() -> lookup(prefix)));
+            }
+
+            Map<String, String> values = new HashMap<>();
+            for (Future<Map<String, String>> lookup : lookups) {
+                values.putAll(lookup.get());
+            }
+            return values;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private Map<String, String> lookup(String prefix) {
+        Map<String, String> values = new HashMap<>();
+        // a multi-route proxy reads more parameters per prefix than fit into one page
+        String nextToken = null;
+        do {
+            GetParametersByPathResult result = ssmClient.getParametersByPath(
+                new GetParametersByPathRequest()
+                    .withMaxResults(Integer.valueOf(10))
+                    .withPath(prefix)
+                    // SecureString parameters come back decrypted, instead of one extra GetParameter call each
+                    .withWithDecryption(Boolean.TRUE)
+                    .withNextToken(nextToken));
+
+            for (Parameter parameter : result.getParameters()) {
+                values.put(parameter.getName(), parameter.getValue());
+            }
+            nextToken = result.getNextToken();
+        } while (nextToken != null);
+        return values;
+    }
+
+    private Map<String, String> readCache() {
+        if (cacheFile == null || !Files.exists(cacheFile)) {
+            return null;
+        }
+
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(cacheFile)) {
+            properties.load(in);
+        } catch (IOException e) {
+            System.out.println(String.format("failed to read the configuration cache %s (%s)", cacheFile, e.getMessage()));
+            return null;
+        }
+
+        // a cache written for other prefixes would miss parameters
+        if (!String.join(",", prefixes).equals(properties.getProperty(CACHED_PREFIXES))) {
+            return null;
+        }
+        properties.remove(CACHED_PREFIXES);
+
+        Map<String, String> values = new HashMap<>();
+        for (String key : properties.stringPropertyNames()) {
+            values.put(key, properties.getProperty(key));
+        }
+        return values;
+    }
+
+    private long cacheAge() {
+        try {
+            return System.currentTimeMillis() - Files.getLastModifiedTime(cacheFile).toMillis();
+        } catch (IOException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    private void writeCache(Map<String, String> values) {
+        if (cacheFile == null) {
+            return;
+        }
+
+        Properties properties = new Properties();
+        properties.putAll(values);
+        properties.setProperty(CACHED_PREFIXES, String.join(",", prefixes));
+
+        try {
+            // the file holds the decrypted SecureString parameters, so only we may read it, and it is replaced in one step
+            Path tmp = Files.createTempFile(cacheFile.toAbsolutePath().getParent(), "configuration", ".tmp");
+            try {
+                Files.setPosixFilePermissions(tmp, PosixFilePermissions.fromString("rw-------"));
+            } catch (UnsupportedOperationException e) {
+                // not a POSIX file system
+            }
+            try (OutputStream out = Files.newOutputStream(tmp)) {
+                properties.store(out, null);
+            }
+            Files.move(tmp, cacheFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.out.println(String.format("failed to write the configuration cache %s (%s)", cacheFile, e.getMessage()));
+        }
+    }
+}
@@ -0,0 +1,325 @@
+package com.aws.sample.amazonmqintegration.core;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The outstanding requests of a request-response route by their correlation id, to match every response with its request. The
+ * entries are preallocated, so tracking neither allocates nor grows: an open addressing index on a 64-bit hash of the correlation
+ * id finds an entry, a timing wheel expires the requests without a response within the timeout. An answered or expired request
+ * is remembered for another timeout, or until its entry is needed, so a response after it counts as late instead of unmatched.
+ * The tracker is split into stripes by the hash of the correlation id, each with its own lock and its share of the capacity, so
+ * the consumers of a route rarely wait for each other.
+ */
+final class CorrelationTracker {
+
+    // what response returns instead of the round trip
+    static final long UNMATCHED = -1;
+    static final long LATE = -2;
+
+    // a power of two, about twice the threads which forward the messages of a route
+    static final int STRIPES = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors())) * 2;
+
+    private static final int WHEEL_SLOTS = 64;
+    private static final int NIL = -1;
+
+    private static final byte FREE = 0;
+    private static final byte OUTSTANDING = 1;
+    private static final byte REMEMBERED = 2;
+
+    private final long timeoutNanos;
+    private final int capacity;
+    private final Stripe[] stripes;
+
+    // counts every request which timed out into timedOut, which outlives the tracker when the route gets new settings. stripes must
+    // be a power of two, none has fewer than one entry
+    CorrelationTracker(long timeoutNanos, int capacity, int stripes, LongAdder timedOut) {
+        this.timeoutNanos = Math.max(1, timeoutNanos);
+        this.capacity = Math.max(1, capacity);
+        this.stripes = new Stripe[Math.min(stripes, Integer.highestOneBit(this.capacity))];
+        for (int i = 0; i < this.stripes.length; i++) {
+            this.stripes[i] = new Stripe(this.timeoutNanos, (this.capacity + this.stripes.length - 1 - i) / this.stripes.length, timedOut);
+        }
+    }
+
+    long timeoutNanos() {
+        return timeoutNanos;
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    // false if the request is not tracked because every entry of its stripe is taken by an outstanding request
+    boolean request(String correlationId, long now) {
+        long hash = hash(correlationId);
+        return stripe(hash).request(correlationId, hash, now);
+    }
+
+    // the round trip in nanoseconds, or UNMATCHED or LATE
+    long response(String correlationId, long now) {
+        long hash = hash(correlationId);
+        return stripe(hash).response(correlationId, hash, now);
+    }
+
+    int outstanding(long now) {
+        int outstanding = 0;
+        for (Stripe stripe : stripes) {
+            outstanding += stripe.outstanding(now);
+        }
+        return outstanding;
+    }
+
+    void expire(long now) {
+        for (Stripe stripe : stripes) {
+            stripe.expire(now);
+        }
+    }
+
+    // bits the index slot within a stripe does not depend on, unless a stripe tracks 32768 requests or more
+    private Stripe stripe(long hash) {
+        return stripes[(int) (hash >>> 48) & (stripes.length - 1)];
+    }
+
+    // a part of the tracker with a lock of its own, a correlation id always goes to the same part
+    private static final class Stripe {
+
+        private final long timeoutNanos;
+        private final int capacity;
+        private final LongAdder timedOut;
+
+        private final String[] ids;
+        private final long[] hashes;
+        // when the request arrived, or, once it is remembered, when it is forgotten
+        private final long[] times;
+        private final long[] deadlines;
+        private final byte[] states;
+        // the doubly linked list an entry is in: the wheel slot of its deadline, the remembered entries or, only next, the free ones
+        private final int[] next;
+        private final int[] previous;
+
+        private final int[] index;
+        private final int mask;
+
+        private final long origin;
+        private final long tickNanos;
+        private final int[] wheel = new int[WHEEL_SLOTS];
+        private long tick;
+
+        private int free;
+        private int oldestRemembered = NIL;
+        private int newestRemembered = NIL;
+        private int outstanding;
+
+        Stripe(long timeoutNanos, int capacity, LongAdder timedOut) {
+            this.timeoutNanos = timeoutNanos;
+            this.capacity = capacity;
+            this.timedOut = timedOut;
+
+            ids = new String[this.capacity];
+            hashes = new long[this.capacity];
+            times = new long[this.capacity];
+            deadlines = new long[this.capacity];
+            states = new byte[this.capacity];
+            next = new int[this.capacity];
+            previous = new int[this.capacity];
+            for (int i = 0; i < this.capacity; i++) {
+                next[i] = i + 1 < this.capacity ? i + 1 : NIL;
+            }
+            free = 0;
+
+            // at most half full, so a lookup probes only a few slots
+            index = new int[Integer.highestOneBit(this.capacity) << 2];
+            mask = index.length - 1;
+            Arrays.fill(index, NIL);
+
+            // a deadline is always less than one turn of the wheel ahead
+            tickNanos = Math.max(1, (this.timeoutNanos + WHEEL_SLOTS - 3) / (WHEEL_SLOTS - 2));
+            Arrays.fill(wheel, NIL);
+            origin = System.nanoTime();
+        }
+
+        synchronized boolean request(String correlationId, long hash, long now) {
+            advance(now);
+            int entry = find(correlationId, hash);
+            if (entry != NIL) {
+                if (states[entry] == OUTSTANDING) {
+                    // a redelivered request, the round trip started with its first delivery
+                    return true;
+                }
+                // the correlation id is used again
+                unlink(entry);
+            } else {
+                if (free == NIL) {
+                    if (oldestRemembered == NIL) {
+                        return false;
+                    }
+                    release(oldestRemembered);
+                }
+                entry = free;
+                free = next[entry];
+                ids[entry] = correlationId;
+                hashes[entry] = hash;
+                insert(entry, hash);
+            }
+
+            states[entry] = OUTSTANDING;
+            times[entry] = now;
+            deadlines[entry] = (now - origin + timeoutNanos + tickNanos - 1) / tickNanos;
+            link(entry, (int) (deadlines[entry] & (WHEEL_SLOTS - 1)));
+            outstanding++;
+            return true;
+        }
+
+        synchronized long response(String correlationId, long hash, long now) {
+            advance(now);
+            int entry = find(correlationId, hash);
+            if (entry == NIL) {
+                return UNMATCHED;
+            }
+            if (states[entry] != OUTSTANDING) {
+                // a second response, or one after the request timed out
+                return LATE;
+            }
+            long roundTrip = Math.max(0, now - times[entry]);
+            unlink(entry);
+            outstanding--;
+            remember(entry, now);
+            return roundTrip;
+        }
+
+        synchronized int outstanding(long now) {
+            advance(now);
+            return outstanding;
+        }
+
+        synchronized void expire(long now) {
+            advance(now);
+        }
+
+        // expires the requests whose deadline passed, at most one turn of the wheel, and forgets the remembered ones whose time is up
+        private void advance(long now) {
+            long current = (now - origin) / tickNanos;
+            for (long t = tick + 1; t <= current && t <= tick + WHEEL_SLOTS; t++) {
+                int entry = wheel[(int) (t & (WHEEL_SLOTS - 1))];
+                while (entry != NIL) {
+                    int following = next[entry];
+                    if (deadlines[entry] <= current) {
+                        unlink(entry);
+                        outstanding--;
+                        timedOut.increment();
+                        MessageLog.timedOut("correlationId", ids[entry]);
+                        remember(entry, now);
+                    }
+                    entry = following;
+                }
+            }
+            if (current > tick) {
+                tick = current;
+            }
+
+            while (oldestRemembered != NIL && times[oldestRemembered] - now <= 0) {
+                release(oldestRemembered);
+            }
+        }
+
+        private void remember(int entry, long now) {
+            states[entry] = REMEMBERED;
+            times[entry] = now + timeoutNanos;
+            deadlines[entry] = NIL;
+            next[entry] = NIL;
+            previous[entry] = newestRemembered;
+            if (newestRemembered != NIL) {
+                next[newestRemembered] = entry;
+            } else {
+                oldestRemembered = entry;
+            }
+            newestRemembered = entry;
+        }
+
+        private void release(int entry) {
+            unlink(entry);
+            remove(entry);
+            states[entry] = FREE;
+            ids[entry] = null;
+            next[entry] = free;
+            free = entry;
+        }
+
+        // puts an outstanding request at the head of its wheel slot
+        private void link(int entry, int slot) {
+            previous[entry] = NIL;
+            next[entry] = wheel[slot];
+            if (wheel[slot] != NIL) {
+                previous[wheel[slot]] = entry;
+            }
+            wheel[slot] = entry;
+        }
+
+        // takes an entry out of its wheel slot or out of the remembered ones
+        private void unlink(int entry) {
+            int before = previous[entry];
+            int after = next[entry];
+            if (after != NIL) {
+                previous[after] = before;
+            }
+            if (before != NIL) {
+                next[before] = after;
+            } else if (states[entry] == OUTSTANDING) {
+                wheel[(int) (deadlines[entry] & (WHEEL_SLOTS - 1))] = after;
+            } else {
+                oldestRemembered = after;
+            }
+            if (states[entry] == REMEMBERED && after == NIL) {
+                newestRemembered = before;
+            }
+        }
+
+        private int find(String correlationId, long hash) {
+            for (int i = slot(hash);; i = (i + 1) & mask) {
+                int entry = index[i];
+                if (entry == NIL || hashes[entry] == hash && correlationId.equals(ids[entry])) {
+                    return entry;
+                }
+            }
+        }
+
+        private void insert(int entry, long hash) {
+            int i = slot(hash);
+            while (index[i] != NIL) {
+                i = (i + 1) & mask;
+            }
+            index[i] = entry;
+        }
+
+        // linear probing, so the entries after the removed one move back into the gap unless they would leave their home slot behind
+        private void remove(int entry) {
+            int i = slot(hashes[entry]);
+            while (index[i] != entry) {
+                i = (i + 1) & mask;
+            }
+            for (int j = (i + 1) & mask; index[j] != NIL; j = (j + 1) & mask) {
+                int home = slot(hashes[index[j]]);
+                if (i <= j ? home <= i || home > j : home <= i && home > j) {
+                    index[i] = index[j];
+                    i = j;
+                }
+            }
+            index[i] = NIL;
+        }
+
+        private int slot(long hash) {
+            return (int) (hash ^ (hash >>> 32)) & mask;
+        }
+    }
+
+    // FNV-1a over the characters, without the allocation of getBytes
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+}
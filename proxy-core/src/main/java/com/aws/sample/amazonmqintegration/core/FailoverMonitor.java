@@ -0,0 +1,89 @@
+package com.aws.sample.amazonmqintegration.core;
+
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.activemq.transport.TransportListener;
+
+/**
+ * Measures how long the broker connections of this process are interrupted. A failover starts when the first connection
+ * loses its transport and ends when the last one has resumed or was closed.
+ */
+public class FailoverMonitor implements FailoverMonitorMXBean {
+
+    // the connections whose transport is interrupted, guarded by this
+    private final Set<Listener> interrupted = new HashSet<>();
+    private long interruptedAt;
+    private final AtomicLong failovers = new AtomicLong();
+    private final AtomicLong lastFailoverMillis = new AtomicLong();
+    private final AtomicLong maxFailoverMillis = new AtomicLong();
+
+    // every connection gets a listener of its own and reports when it is closed, a closed connection never resumes
+    public Listener listener() {
+        return new Listener();
+    }
+
+    public class Listener implements TransportListener {
+
+        private Listener() {
+        }
+
+        @Override
+        public void onCommand(Object command) {
+        }
+
+        @Override
+        public void onException(IOException e) {
+            System.out.println(String.format("broker connection failed (%s)", e.getMessage()));
+        }
+
+        @Override
+        public void transportInterupted() {
+            interrupted(this);
+        }
+
+        @Override
+        public void transportResumed() {
+            resumed(this);
+        }
+
+        public void closed() {
+            resumed(this);
+        }
+    }
+
+    private synchronized void interrupted(Listener listener) {
+        if (interrupted.isEmpty()) {
+            interruptedAt = System.currentTimeMillis();
+            System.out.println("broker connection interrupted, failing over");
+        }
+        interrupted.add(listener);
+    }
+
+    private synchronized void resumed(Listener listener) {
+        if (interrupted.remove(listener) && interrupted.isEmpty()) {
+            long millis = System.currentTimeMillis() - interruptedAt;
+            failovers.incrementAndGet();
+            lastFailoverMillis.set(millis);
+            maxFailoverMillis.accumulateAndGet(millis, Math::max);
+            System.out.println(String.format("broker connection resumed after a failover of %d ms", millis));
+        }
+    }
+
+    @Override
+    public long getFailovers() {
+        return failovers.get();
+    }
+
+    @Override
+    public long getLastFailoverMillis() {
+        return lastFailoverMillis.get();
+    }
+
+    @Override
+    public long getMaxFailoverMillis() {
+        return maxFailoverMillis.get();
+    }
+}
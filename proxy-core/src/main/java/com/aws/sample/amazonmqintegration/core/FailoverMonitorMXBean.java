@@ -0,0 +1,13 @@
+package com.aws.sample.amazonmqintegration.core;
+
+/**
+ * The failovers of the broker connections as they are registered in JMX, under com.aws.sample.amazonmqintegration:type=Broker.
+ */
+public interface FailoverMonitorMXBean {
+
+    long getFailovers();
+
+    long getLastFailoverMillis();
+
+    long getMaxFailoverMillis();
+}
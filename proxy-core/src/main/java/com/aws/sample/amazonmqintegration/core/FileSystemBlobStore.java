@@ -0,0 +1,103 @@
+package com.aws.sample.amazonmqintegration.core;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.UUID;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+// keeps the payloads in a directory, e.g. a shared EFS mount or a local directory when both legs run in one process
+public class FileSystemBlobStore implements BlobStore {
+
+    // SQS keeps a message at most 14 days, no reference is still on its way after that
+    public static final long DEFAULT_RETENTION_MILLIS = TimeUnit.DAYS.toMillis(14);
+
+    private static final long SWEEP_INTERVAL_MINUTES = 60;
+
+    // one thread sweeps every store of the process, it ends a minute after the last store was closed
+    private static final ScheduledThreadPoolExecutor SWEEPER = new ScheduledThreadPoolExecutor(1, runnable -> {
+        Thread thread = new Thread(runnable, "blob-store-sweeper");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    static {
+        SWEEPER.setRemoveOnCancelPolicy(true);
+        SWEEPER.setKeepAliveTime(1, TimeUnit.MINUTES);
+        SWEEPER.allowCoreThreadTimeOut(true);
+    }
+
+    private final Path directory;
+    private ScheduledFuture<?> sweep;
+
+    public FileSystemBlobStore(Path directory) throws IOException {
+        this.directory = Files.createDirectories(directory).toAbsolutePath().normalize();
+    }
+
+    /**
+     * Deletes the payloads older than the retention once an hour. A payload is not deleted once it is read: SNS hands the same
+     * reference to every subscriber, and a message which failed to forward comes back with it. Every process using the directory
+     * sweeps it, they do not get in each other's way. A new retention replaces the previous one.
+     */
+    public synchronized FileSystemBlobStore withRetention(long retentionMillis) {
+        close();
+        sweep = SWEEPER.scheduleWithFixedDelay(() -> sweep(System.currentTimeMillis() - retentionMillis), 0, SWEEP_INTERVAL_MINUTES, TimeUnit.MINUTES);
+        return this;
+    }
+
+    // stops sweeping, the payloads can still be read
+    @Override
+    public synchronized void close() {
+        if (sweep != null) {
+            sweep.cancel(false);
+            sweep = null;
+        }
+    }
+
+    synchronized boolean sweeping() {
+        return sweep != null;
+    }
+
+    @Override
+    public String put(byte[] payload) throws IOException {
+        String reference = UUID.randomUUID().toString();
+        Files.write(directory.resolve(reference), payload);
+        return reference;
+    }
+
+    @Override
+    public byte[] get(String reference) throws IOException {
+        // the reference comes with the message, it must not point outside of the store
+        Path file = directory.resolve(reference).normalize();
+        if (!file.getParent().equals(directory)) {
+            throw new IOException(String.format("invalid payload reference '%s'", reference));
+        }
+        return Files.readAllBytes(file);
+    }
+
+    // deletes the payloads last written before the given time
+    void sweep(long before) {
+        int deleted = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                try {
+                    if (Files.isRegularFile(file) && Files.getLastModifiedTime(file).toMillis() < before) {
+                        Files.delete(file);
+                        deleted++;
+                    }
+                } catch (NoSuchFileException e) {
+                    // another process swept it first
+                }
+            }
+        } catch (IOException e) {
+            System.out.println(String.format("failed to sweep blob store %s (%s)", directory, e.getMessage()));
+        }
+        if (deleted > 0) {
+            System.out.println(String.format("deleted %d expired payloads from blob store %s", deleted, directory));
+        }
+    }
+}
@@ -0,0 +1,307 @@
+package com.aws.sample.amazonmqintegration.core;
+
+import static com.aws.sample.amazonmqintegration.core.ServiceConfiguration.PROXY_CONFIGURATION;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+
+import javax.jms.DeliveryMode;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.MessageFormatException;
+
+/**
+ * Packs the JMS headers and properties of a message into the one binary message attribute JMSHeaders, so they survive the way
+ * through SQS and SNS without spending one of the 10 message attributes per property. JMSCorrelationID and JMSReplyTo keep
+ * their own attributes. The properties listed in /PROXY/NAMED-PROPERTIES are additionally sent as attributes of their own, e.g.
+ * for SNS filter policies. Decoding always works, so only the sending leg needs the configuration. Properties of other types than
+ * the JMS primitives and String, e.g. the maps and lists ActiveMQ allows, cannot be forwarded.
+ */
+public class HeaderCodec {
+
+    public static final String NAMED_PROPERTIES = PROXY_CONFIGURATION + "/NAMED-PROPERTIES";
+    public static final String HEADERS = "JMSHeaders";
+
+    public static final HeaderCodec NONE = new HeaderCodec(Collections.emptyList());
+
+    // SQS and SNS take at most 10 message attributes, the sinks add up to 5 of their own: JMSHeaders, JMSCorrelationID, JMSReplyTo
+    // and two describing the payload
+    public static final int MAX_NAMED_PROPERTIES = 5;
+    private static final List<String> RESERVED = Arrays.asList(HEADERS, "JMSCorrelationID", "JMSReplyTo",
+            Payload.MESSAGE_TYPE, Payload.BINARY_BODY, PayloadCodec.CONTENT_ENCODING, PayloadCodec.PAYLOAD_REFERENCE);
+
+    private static final byte VERSION = 1;
+
+    private static final byte STRING = 1;
+    private static final byte BOOLEAN = 2;
+    private static final byte BYTE = 3;
+    private static final byte SHORT = 4;
+    private static final byte INT = 5;
+    private static final byte LONG = 6;
+    private static final byte FLOAT = 7;
+    private static final byte DOUBLE = 8;
+
+    private final List<String> namedProperties;
+
+    public HeaderCodec(List<String> namedProperties) {
+        this.namedProperties = namedProperties;
+    }
+
+    public static HeaderCodec fromConfiguration(ServiceConfiguration conf) {
+        String names = conf.get(NAMED_PROPERTIES);
+        if (names == null) {
+            return NONE;
+        }
+
+        // an ignored property is still forwarded in JMSHeaders, it only gets no attribute of its own
+        List<String> namedProperties = new ArrayList<>();
+        for (String name : names.split(",")) {
+            name = name.trim();
+            if (name.isEmpty() || namedProperties.contains(name)) {
+                continue;
+            }
+            if (RESERVED.contains(name)) {
+                System.out.println(String.format("ignoring named property %s, the proxy uses the attribute itself", name));
+            } else if (namedProperties.size() == MAX_NAMED_PROPERTIES) {
+                System.out.println(String.format("ignoring named property %s, at most %d properties get an attribute of their own", name, MAX_NAMED_PROPERTIES));
+            } else {
+                namedProperties.add(name);
+            }
+        }
+        return new HeaderCodec(namedProperties);
+    }
+
+    public List<String> namedProperties() {
+        return namedProperties;
+    }
+
+    // the data type of the attribute of a named property, SQS and SNS refuse NaN and infinity as a Number
+    public static String dataType(Object value) {
+        if (value instanceof Double && !Double.isFinite((Double) value) || value instanceof Float && !Float.isFinite((Float) value)) {
+            return "String";
+        }
+        return value instanceof Number ? "Number" : "String";
+    }
+
+    /**
+     * The headers and properties of a message as they are restored on the opposite leg.
+     */
+    public static class Headers {
+
+        private int deliveryMode = DeliveryMode.PERSISTENT;
+        private int priority = Message.DEFAULT_PRIORITY;
+        private long expiration;
+        private String type;
+        private final List<String> names = new ArrayList<>();
+        private final List<Object> values = new ArrayList<>();
+
+        public int deliveryMode() {
+            return deliveryMode;
+        }
+
+        public int priority() {
+            return priority;
+        }
+
+        // the producer sets JMSExpiration from the time to live, an already expired message still gets a moment to expire at the broker
+        public long timeToLive() {
+            return expiration == 0 ? Message.DEFAULT_TIME_TO_LIVE : Math.max(1, expiration - System.currentTimeMillis());
+        }
+
+        public void applyTo(Message message) throws JMSException {
+            if (type != null) {
+                message.setJMSType(type);
+            }
+            for (int i = 0; i < names.size(); i++) {
+                String name = names.get(i);
+                Object value = values.get(i);
+                if (value instanceof String) {
+                    message.setStringProperty(name, (String) value);
+                } else if (value instanceof Integer) {
+                    message.setIntProperty(name, (Integer) value);
+                } else if (value instanceof Long) {
+                    message.setLongProperty(name, (Long) value);
+                } else if (value instanceof Boolean) {
+                    message.setBooleanProperty(name, (Boolean) value);
+                } else if (value instanceof Double) {
+                    message.setDoubleProperty(name, (Double) value);
+                } else if (value instanceof Float) {
+                    message.setFloatProperty(name, (Float) value);
+                } else if (value instanceof Short) {
+                    message.setShortProperty(name, (Short) value);
+                } else if (value instanceof Byte) {
+                    message.setByteProperty(name, (Byte) value);
+                } else {
+                    throw new MessageFormatException(String.format("unsupported type of property %s", name));
+                }
+            }
+        }
+    }
+
+    public ByteBuffer encode(Message message) throws JMSException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(64);
+        out.write(VERSION);
+        out.write(message.getJMSDeliveryMode());
+        out.write(message.getJMSPriority());
+        writeVarLong(out, message.getJMSExpiration());
+        writeString(out, message.getJMSType());
+
+        Enumeration<?> names = message.getPropertyNames();
+        while (names.hasMoreElements()) {
+            String name = (String) names.nextElement();
+            // the broker sets the other JMSX properties, e.g. JMSXDeliveryCount, for the forwarded message on its own
+            if (name.startsWith("JMSX") && !name.equals("JMSXGroupID") && !name.equals("JMSXGroupSeq")) {
+                continue;
+            }
+            // a property set to null reads like a missing one
+            Object value = message.getObjectProperty(name);
+            if (value != null) {
+                writeProperty(out, name, value);
+            }
+        }
+        return ByteBuffer.wrap(out.toByteArray());
+    }
+
+    public static Headers decode(ByteBuffer attribute) throws IOException {
+        ByteBuffer in = attribute.duplicate();
+        Headers headers = new Headers();
+        try {
+            if (in.get() != VERSION) {
+                throw new IOException("unknown version of the JMSHeaders attribute");
+            }
+            headers.deliveryMode = in.get();
+            headers.priority = in.get();
+            headers.expiration = readVarLong(in);
+            headers.type = readString(in);
+
+            while (in.hasRemaining()) {
+                headers.names.add(readString(in));
+                headers.values.add(readValue(in));
+            }
+        } catch (BufferUnderflowException e) {
+            throw new IOException("truncated JMSHeaders attribute", e);
+        }
+        return headers;
+    }
+
+    private static void writeProperty(ByteArrayOutputStream out, String name, Object value) throws JMSException {
+        writeString(out, name);
+        if (value instanceof String) {
+            out.write(STRING);
+            writeString(out, (String) value);
+        } else if (value instanceof Integer) {
+            out.write(INT);
+            writeVarLong(out, (Integer) value);
+        } else if (value instanceof Long) {
+            out.write(LONG);
+            writeVarLong(out, (Long) value);
+        } else if (value instanceof Boolean) {
+            out.write(BOOLEAN);
+            out.write((Boolean) value ? 1 : 0);
+        } else if (value instanceof Double) {
+            out.write(DOUBLE);
+            writeFixedLong(out, Double.doubleToRawLongBits((Double) value), 8);
+        } else if (value instanceof Float) {
+            out.write(FLOAT);
+            writeFixedLong(out, Float.floatToRawIntBits((Float) value), 4);
+        } else if (value instanceof Short) {
+            out.write(SHORT);
+            writeVarLong(out, (Short) value);
+        } else if (value instanceof Byte) {
+            out.write(BYTE);
+            out.write((Byte) value);
+        } else {
+            // the message fails and the broker moves it to its dead letter queue once it has been redelivered often enough
+            throw new MessageFormatException(String.format("unsupported type %s of property %s", value.getClass().getName(), name));
+        }
+    }
+
+    private static Object readValue(ByteBuffer in) throws IOException {
+        byte tag = in.get();
+        switch (tag) {
+            case STRING:
+                return readString(in);
+            case INT:
+                return (int) readVarLong(in);
+            case LONG:
+                return readVarLong(in);
+            case BOOLEAN:
+                return in.get() != 0;
+            case DOUBLE:
+                return in.getDouble();
+            case FLOAT:
+                return in.getFloat();
+            case SHORT:
+                return (short) readVarLong(in);
+            case BYTE:
+                return in.get();
+            default:
+                throw new IOException(String.format("unknown property type %d in the JMSHeaders attribute", tag));
+        }
+    }
+
+    // null is written as length 0, the empty string as length 1
+    private static void writeString(ByteArrayOutputStream out, String value) {
+        if (value == null) {
+            writeVarLong(out, 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, bytes.length + 1);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = (int) readVarLong(in);
+        if (length == 0) {
+            return null;
+        }
+        if (length - 1 > in.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        if (!in.hasArray()) {
+            byte[] bytes = new byte[length - 1];
+            in.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+        String value = new String(in.array(), in.arrayOffset() + in.position(), length - 1, StandardCharsets.UTF_8);
+        in.position(in.position() + length - 1);
+        return value;
+    }
+
+    // zig-zag encoded, so small negative numbers stay small as well
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        long zigZag = (value << 1) ^ (value >> 63);
+        while ((zigZag & ~0x7FL) != 0) {
+            out.write((int) ((zigZag & 0x7F) | 0x80));
+            zigZag >>>= 7;
+        }
+        out.write((int) zigZag);
+    }
+
+    private static long readVarLong(ByteBuffer in) {
+        long zigZag = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.get();
+            zigZag |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return (zigZag >>> 1) ^ -(zigZag & 1);
+    }
+
+    private static void writeFixedLong(ByteArrayOutputStream out, long value, int bytes) {
+        for (int shift = (bytes - 1) * 8; shift >= 0; shift -= 8) {
+            out.write((int) (value >>> shift));
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package com.aws.sample.amazonmqintegration.core;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import javax.jms.Connection;
+import javax.jms.Destination;
+import javax.jms.JMSException;
+import javax.jms.MessageProducer;
+import javax.jms.Session;
+
+import org.apache.activemq.ActiveMQMessageProducer;
+import org.apache.activemq.AsyncCallback;
+import org.apache.activemq.jms.pool.PooledConnection;
+
+import com.amazonaws.services.sqs.model.Message;
+import com.amazonaws.services.sqs.model.MessageAttributeValue;
+
+/**
+ * Forwards messages to the broker. A sink owns its session and producer, so it must only be used by one thread at a time.
+ */
+public class JmsSink {
+
+    private static final int REPLY_DESTINATION_CACHE_SIZE = 1000;
+
+    private final Connection connection;
+    private final Session session;
+    private final MessageProducer messageProducer;
+    private final Map<String, Destination> replyDestinations;
+    private Destination replyTo;
+    private PayloadCodec codec = PayloadCodec.NONE;
+    private Semaphore producerWindow;
+    private RouteMetrics.Leg metrics = RouteMetrics.Leg.NONE;
+
+    private JmsSink(Connection connection, Session session, Destination destination) throws JMSException {
+        this.connection = connection;
+        this.session = session;
+        // without a destination the producer is anonymous and sends every message to its reply destination
+        this.messageProducer = session.createProducer(destination);
+        this.replyDestinations = destination == null ? replyDestinationCache() : null;
+    }
+
+    public static JmsSink toQueue(Connection connection, String queue) throws JMSException {
+        Session session = connection.createSession(false, Session.CLIENT_ACKNOWLEDGE);
+        return new JmsSink(connection, session, session.createQueue(queue));
+    }
+
+    public static JmsSink toTopic(Connection connection, String topic) throws JMSException {
+        return toTopic(connection, topic, false);
+    }
+
+    // in a transacted session the sends are not confirmed one by one, the broker confirms all of them on commit
+    public static JmsSink toTopic(Connection connection, String topic, boolean transacted) throws JMSException {
+        Session session = connection.createSession(transacted, transacted ? Session.SESSION_TRANSACTED : Session.CLIENT_ACKNOWLEDGE);
+        return new JmsSink(connection, session, session.createTopic(topic));
+    }
+
+    // an anonymous producer can send to any reply destination without registering a new producer at the broker
+    public static JmsSink toReplyTo(Connection connection) throws JMSException {
+        return new JmsSink(connection, connection.createSession(false, Session.CLIENT_ACKNOWLEDGE), null);
+    }
+
+    // every forwarded message asks for its response on this queue
+    public JmsSink withReplyTo(String queue) throws JMSException {
+        replyTo = session.createQueue(queue);
+        return this;
+    }
+
+    // decodes compressed and offloaded payloads of the SQS messages
+    public JmsSink withCodec(PayloadCodec codec) {
+        this.codec = codec;
+        return this;
+    }
+
+    // up to this many persistent messages are sent without waiting for the broker to write each of them, 0 sends synchronously
+    public JmsSink withProducerWindow(int messages) throws JMSException {
+        if (messages <= 0) {
+            return this;
+        }
+        if (!(messageProducer instanceof ActiveMQMessageProducer)) {
+            throw new JMSException("asynchronous sends need a connection of the ActiveMQ client, not a pooled one");
+        }
+        producerWindow = new Semaphore(messages);
+        return this;
+    }
+
+    public JmsSink withMetrics(RouteMetrics.Leg metrics) {
+        this.metrics = metrics;
+        return this;
+    }
+
+    public void send(String messageId, String body, String correlationId, String replyTo) throws JMSException {
+        send(messageId, Payload.text(body), correlationId, replyTo);
+    }
+
+    // text, bytes, map and object messages, as the payload was received
+    public void send(String messageId, Payload payload, String correlationId, String replyTo) throws JMSException {
+        send(messageId, payload, correlationId, replyTo, null);
+    }
+
+    // without headers the message is sent with the defaults of the producer
+    public void send(String messageId, Payload payload, String correlationId, String replyTo, HeaderCodec.Headers headers) throws JMSException {
+        send(messageId, payload, correlationId, replyTo, headers, null);
+    }
+
+    private void send(String messageId, Payload payload, String correlationId, String replyTo, HeaderCodec.Headers headers, AsyncCallback callback) throws JMSException {
+        javax.jms.Message message = payload.toMessage(session);
+        message.setJMSMessageID(messageId);
+        if (correlationId != null) {
+            message.setJMSCorrelationID(correlationId);
+        }
+        // the producer overwrites delivery mode, priority and expiration of the message, so we hand them to the send
+        int deliveryMode = messageProducer.getDeliveryMode();
+        int priority = messageProducer.getPriority();
+        long timeToLive = messageProducer.getTimeToLive();
+        if (headers != null) {
+            headers.applyTo(message);
+            deliveryMode = headers.deliveryMode();
+            priority = headers.priority();
+            timeToLive = headers.timeToLive();
+        }
+
+        Destination destination = null;
+        if (replyDestinations != null) {
+            destination = replyDestination(replyTo);
+        } else if (replyTo != null) {
+            message.setJMSReplyTo(session.createQueue(replyTo));
+        } else if (this.replyTo != null) {
+            message.setJMSReplyTo(this.replyTo);
+        }
+
+        if (callback == null) {
+            if (destination != null) {
+                messageProducer.send(destination, message, deliveryMode, priority, timeToLive);
+            } else {
+                messageProducer.send(message, deliveryMode, priority, timeToLive);
+            }
+        } else if (destination != null) {
+            ((ActiveMQMessageProducer) messageProducer).send(destination, message, deliveryMode, priority, timeToLive, callback);
+        } else {
+            ((ActiveMQMessageProducer) messageProducer).send(message, deliveryMode, priority, timeToLive, callback);
+        }
+    }
+
+    public void commit() throws JMSException {
+        session.commit();
+    }
+
+    public void rollback() throws JMSException {
+        session.rollback();
+    }
+
+    // a connection borrowed from the pool is given back, a shared one stays open for the other sinks
+    public void close() {
+        try {
+            session.close();
+            if (connection instanceof PooledConnection) {
+                connection.close();
+            }
+        } catch (JMSException e) {
+            System.out.println(String.format("failed to close session (%s)", e.getMessage()));
+        }
+    }
+
+    /**
+     * Forwards the SQS messages and hands the ones the broker has confirmed to {@code confirmed}. With a producer window the
+     * messages are sent asynchronously and {@code confirmed} is called on the transport thread of the connection once the broker
+     * confirmed or refused the last of them, otherwise before this method returns. {@code receivedAt} is the
+     * {@link System#nanoTime()} the messages were received from SQS at.
+     */
+    public void forward(List<Message> messages, long receivedAt, Consumer<List<Message>> confirmed) {
+        if (messages.isEmpty()) {
+            confirmed.accept(messages);
+            return;
+        }
+
+        final List<Message> forwarded = Collections.synchronizedList(new ArrayList<>(messages.size()));
+        final AtomicInteger pending = new AtomicInteger(messages.size());
+        for (Message msg : messages) {
+            metrics.received(attribute(msg, "JMSCorrelationID"));
+            MessageLog.received("messageId", msg.getMessageId());
+
+            if (producerWindow != null) {
+                // blocks this worker, never the transport thread, while the broker has not confirmed enough of the previous messages
+                producerWindow.acquireUninterruptibly();
+            }
+            try {
+                if (producerWindow == null) {
+                    send(msg, null);
+                    forwarded(msg, receivedAt, forwarded, pending, confirmed);
+                } else {
+                    send(msg, new AsyncCallback() {
+
+                        @Override
+                        public void onSuccess() {
+                            producerWindow.release();
+                            forwarded(msg, receivedAt, forwarded, pending, confirmed);
+                        }
+
+                        @Override
+                        public void onException(JMSException e) {
+                            producerWindow.release();
+                            failed(msg, e, forwarded, pending, confirmed);
+                        }
+                    });
+                }
+            } catch (JMSException | IOException | RuntimeException e) {
+                // e.g. a payload or header attribute we cannot decode, the other messages are forwarded nonetheless
+                if (producerWindow != null) {
+                    producerWindow.release();
+                }
+                failed(msg, e, forwarded, pending, confirmed);
+            }
+        }
+    }
+
+    private void send(Message msg, AsyncCallback callback) throws JMSException, IOException {
+        MessageAttributeValue binaryBody = msg.getMessageAttributes().get(Payload.BINARY_BODY);
+        Payload payload = codec.decode(msg.getBody(), attribute(msg, PayloadCodec.CONTENT_ENCODING), attribute(msg, PayloadCodec.PAYLOAD_REFERENCE),
+            attribute(msg, Payload.MESSAGE_TYPE), binaryBody != null ? binaryBody.getBinaryValue() : null);
+        MessageAttributeValue headers = msg.getMessageAttributes().get(HeaderCodec.HEADERS);
+        send(msg.getMessageId(), payload, attribute(msg, "JMSCorrelationID"), attribute(msg, "JMSReplyTo"),
+            headers != null ? HeaderCodec.decode(headers.getBinaryValue()) : null, callback);
+    }
+
+    private void forwarded(Message msg, long receivedAt, List<Message> forwarded, AtomicInteger pending, Consumer<List<Message>> confirmed) {
+        metrics.forwarded(receivedAt);
+        MessageLog.forwarded("messageId", msg.getMessageId());
+        forwarded.add(msg);
+        if (pending.decrementAndGet() == 0) {
+            confirmed.accept(forwarded);
+        }
+    }
+
+    private void failed(Message msg, Exception e, List<Message> forwarded, AtomicInteger pending, Consumer<List<Message>> confirmed) {
+        // the message is not deleted, so SQS makes it visible again once its visibility timeout expires
+        metrics.failed();
+        MessageLog.failed("messageId", msg.getMessageId(), e.getMessage());
+        if (pending.decrementAndGet() == 0) {
+            confirmed.accept(forwarded);
+        }
+    }
+
+    private static String attribute(Message msg, String name) {
+        MessageAttributeValue value = msg.getMessageAttributes().get(name);
+        return value != null ? value.getStringValue() : null;
+    }
+
+    private Destination replyDestination(String replyTo) throws JMSException {
+        if (replyTo == null) {
+            throw new JMSException("message has no JMSReplyTo to send it to");
+        }
+        Destination replyDestination = replyDestinations.get(replyTo);
+        if (replyDestination == null) {
+            replyDestination = session.createQueue(replyTo);
+            replyDestinations.put(replyTo, replyDestination);
+        }
+        return replyDestination;
+    }
+
+    private static Map<String, Destination> replyDestinationCache() {
+        // access ordered, so the reply destinations which have been idle the longest are evicted first
+        return new LinkedHashMap<String, Destination>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Destination> eldest) {
+                return size() > REPLY_DESTINATION_CACHE_SIZE;
+            }
+        };
+    }
+}
@@ -0,0 +1,254 @@
+package com.aws.sample.amazonmqintegration.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.jms.Connection;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.MessageConsumer;
+import javax.jms.Session;
+
+import org.apache.activemq.ActiveMQSession;
+
+public class JmsSource implements Stoppable {
+
+    private static final long IDLE_RECEIVE_TIMEOUT = 1000;
+
+    private final Connection connection;
+    private final String queue;
+    private final int consumers;
+    private final int batchSize;
+    private final long batchLinger;
+    private final int inFlight;
+    private final List<Thread> threads = new ArrayList<>();
+    private volatile boolean running = true;
+    private Sink sink;
+    private int prefetch;
+    private int acknowledgeBatchSize = 1;
+    private long acknowledgeBatchMillis;
+    private RouteMetrics.Leg metrics = RouteMetrics.Leg.NONE;
+
+    public JmsSource(Connection connection, String queue, int consumers, int batchSize, long batchLinger, int inFlight) {
+        this.connection = connection;
+        this.queue = queue;
+        this.consumers = consumers;
+        this.batchSize = batchSize;
+        this.batchLinger = batchLinger;
+        this.inFlight = inFlight;
+    }
+
+    // a small prefetch keeps a slow consumer from holding back messages the other consumers could forward, 0 keeps the broker's default
+    public JmsSource withPrefetch(int prefetch) {
+        this.prefetch = prefetch;
+        return this;
+    }
+
+    // acknowledges every size messages or millis ms with one acknowledgement instead of one per message, a size of 1 acknowledges each message on its own
+    public JmsSource withAcknowledgeBatch(int size, long millis) {
+        this.acknowledgeBatchSize = size;
+        this.acknowledgeBatchMillis = millis;
+        return this;
+    }
+
+    public JmsSource withMetrics(RouteMetrics.Leg metrics) {
+        this.metrics = metrics;
+        return this;
+    }
+
+    public JmsSource start(String name, Sink sink) throws JMSException {
+        this.sink = sink;
+        // the broker load balances the queue across all consumers, each one has its own session and thread
+        for (int i = 0; i < consumers; i++) {
+            // individual acknowledge lets us acknowledge exactly the messages the sink forwarded, CLIENT_ACKNOWLEDGE acknowledges the whole session
+            // and is only used for batched acknowledgements, once everything the session received is forwarded
+            Session session = null;
+            try {
+                session = connection.createSession(false, acknowledgeBatchSize > 1 ? Session.CLIENT_ACKNOWLEDGE : ActiveMQSession.INDIVIDUAL_ACKNOWLEDGE);
+                final Session consumerSession = session;
+                final MessageConsumer consumer = session.createConsumer(session.createQueue(prefetch > 0 ? queue + "?consumer.prefetchSize=" + prefetch : queue));
+                Thread thread = new Thread(() -> consume(consumerSession, consumer, sink), name + "-" + i);
+                threads.add(thread);
+                thread.start();
+            } catch (JMSException | RuntimeException e) {
+                // the consumers started so far finish what they have in flight, the sink is closed with them
+                if (session != null && threads.size() == i) {
+                    closeQuietly(session);
+                }
+                stop();
+                throw e;
+            }
+        }
+        return this;
+    }
+
+    private static void closeQuietly(Session session) {
+        try {
+            session.close();
+        } catch (JMSException e) {
+            System.out.println(String.format("failed to close session (%s)", e.getMessage()));
+        }
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        try {
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        sink.close();
+    }
+
+    private void consume(Session session, MessageConsumer consumer, Sink sink) {
+        // every consumer keeps up to inFlight batches in flight, the sink completes them from its callbacks
+        final Semaphore window = new Semaphore(inFlight);
+        final AtomicBoolean redeliver = new AtomicBoolean();
+
+        Message unacknowledged = null;
+        int unacknowledgedCount = 0;
+        long lastAcknowledge = System.currentTimeMillis();
+        try {
+            while (running) {
+                try {
+                    if (redeliver.getAndSet(false)) {
+                        // wait until nothing is in flight anymore, then let the broker redeliver every unacknowledged message
+                        window.acquire(inFlight);
+                        try {
+                            session.recover();
+                            unacknowledged = null;
+                            unacknowledgedCount = 0;
+                        } finally {
+                            window.release(inFlight);
+                        }
+                    }
+                    Batch batch = receiveBatch(consumer);
+                    if (!batch.isEmpty()) {
+                        window.acquire();
+                        boolean forwarding = false;
+                        try {
+                            sink.forward(batch, completion(batch.receivedAt, window, redeliver));
+                            forwarding = true;
+                        } finally {
+                            // the completion releases the permit, unless the sink failed before it took the batch
+                            if (!forwarding) {
+                                window.release();
+                            }
+                        }
+                        unacknowledged = batch.get(batch.size() - 1);
+                        unacknowledgedCount += batch.size();
+                    }
+
+                    if (acknowledgeBatchSize > 1 && unacknowledged != null
+                            && (unacknowledgedCount >= acknowledgeBatchSize || System.currentTimeMillis() - lastAcknowledge >= acknowledgeBatchMillis)) {
+                        // the acknowledgement covers every message the session received, so it waits until all of them are forwarded
+                        window.acquire(inFlight);
+                        try {
+                            if (!redeliver.get()) {
+                                unacknowledged.acknowledge();
+                                unacknowledged = null;
+                                unacknowledgedCount = 0;
+                                lastAcknowledge = System.currentTimeMillis();
+                            }
+                        } finally {
+                            window.release(inFlight);
+                        }
+                    }
+                } catch (JMSException | RuntimeException e) {
+                    // the consumer keeps going, the session is recovered so the broker redelivers what was not acknowledged
+                    MessageLog.failed("queue", queue, e.getMessage());
+                    redeliver.set(true);
+                    Thread.sleep(IDLE_RECEIVE_TIMEOUT);
+                }
+            }
+
+            // the broker redelivers the messages of a failed batch once the session is closed
+            window.acquire(inFlight);
+            if (unacknowledged != null && !redeliver.get()) {
+                unacknowledged.acknowledge();
+            }
+            consumer.close();
+            session.close();
+        } catch (JMSException e) {
+            MessageLog.failed("queue", queue, e.getMessage());
+            closeQuietly(session);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Sink.Completion completion(long receivedAt, Semaphore window, AtomicBoolean redeliver) {
+        return new Sink.Completion() {
+
+            @Override
+            public void forwarded(Message msg) {
+                metrics.forwarded(receivedAt);
+                try {
+                    if (acknowledgeBatchSize <= 1) {
+                        msg.acknowledge();
+                    }
+                    MessageLog.forwarded("correlationId", msg.getJMSCorrelationID());
+                } catch (JMSException e) {
+                    System.out.println(String.format("failed to acknowledge forwarded message (%s)", e.getMessage()));
+                    redeliver.set(true);
+                }
+            }
+
+            @Override
+            public void failed(Message msg, String reason) {
+                metrics.failed();
+                try {
+                    MessageLog.failed("correlationId", msg.getJMSCorrelationID(), reason);
+                } catch (JMSException e) {
+                    MessageLog.failed("correlationId", null, reason);
+                }
+                redeliver.set(true);
+            }
+
+            @Override
+            public void done() {
+                window.release();
+            }
+        };
+    }
+
+    // the latency of a batch is measured from its first message, which waited the longest for the batch to fill up
+    private static class Batch extends ArrayList<Message> {
+
+        private long receivedAt;
+
+        Batch(int capacity) {
+            super(capacity);
+        }
+    }
+
+    private Batch receiveBatch(MessageConsumer consumer) throws JMSException {
+        // the batch is handed over to a completion callback, so every batch gets its own list
+        Batch batch = new Batch(batchSize);
+
+        // wait for the first message (but return regularly to recover failed batches), then wait at most batchLinger ms to fill up the batch
+        Message message = consumer.receive(IDLE_RECEIVE_TIMEOUT);
+        long deadline = System.currentTimeMillis() + batchLinger;
+        while (message != null) {
+            String correlationId = message.getJMSCorrelationID();
+            long receivedAt = metrics.received(correlationId);
+            if (batch.isEmpty()) {
+                batch.receivedAt = receivedAt;
+            }
+            MessageLog.received("correlationId", correlationId);
+            batch.add(message);
+
+            long remaining = deadline - System.currentTimeMillis();
+            if (batch.size() >= batchSize || remaining <= 0) {
+                break;
+            }
+            message = consumer.receive(remaining);
+        }
+        return batch;
+    }
+}
@@ -0,0 +1,258 @@
+package com.aws.sample.amazonmqintegration.core;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import javax.jms.Connection;
+import javax.jms.JMSException;
+import javax.jms.Message;
+import javax.jms.Session;
+import javax.jms.TopicSubscriber;
+
+import org.apache.activemq.ActiveMQSession;
+
+public class JmsTopicSource implements Stoppable {
+
+    private static final int FORWARDER_CAPACITY = 100;
+    private static final long IDLE_TIMEOUT = 1000;
+
+    private final Connection connection;
+    private final String topic;
+    private final String subscription;
+    private final int forwarders;
+    private final int inFlight;
+    private final List<Thread> threads = new ArrayList<>();
+    private final List<BlockingQueue<Message>> queues = new ArrayList<>();
+    private volatile boolean running = true;
+    // set by a failed message until the subscriber is recreated
+    private volatile boolean recovering;
+    // the forwarders waiting for the subscriber to be recreated and how often it was, guarded by recovery
+    private final Object recovery = new Object();
+    private int recoveringForwarders;
+    private int recoveries;
+    private int next;
+    private Session session;
+    private volatile TopicSubscriber consumer;
+    private Sink sink;
+    private int prefetch;
+    private RouteMetrics.Leg metrics = RouteMetrics.Leg.NONE;
+
+    public JmsTopicSource(Connection connection, String topic, String subscription, int forwarders, int inFlight) {
+        this.connection = connection;
+        this.topic = topic;
+        this.subscription = subscription;
+        this.forwarders = forwarders;
+        this.inFlight = inFlight;
+    }
+
+    // the messages the broker dispatched ahead wait in the forwarder queues, 0 keeps the broker's default
+    public JmsTopicSource withPrefetch(int prefetch) {
+        this.prefetch = prefetch;
+        return this;
+    }
+
+    public JmsTopicSource withMetrics(RouteMetrics.Leg metrics) {
+        this.metrics = metrics;
+        return this;
+    }
+
+    public JmsTopicSource start(String name, Sink sink) throws JMSException {
+        this.sink = sink;
+        try {
+            // individual acknowledge, CLIENT_ACKNOWLEDGE would also acknowledge the messages other forwarders have not published yet
+            session = connection.createSession(false, ActiveMQSession.INDIVIDUAL_ACKNOWLEDGE);
+
+            // messages of the same JMSXGroupID always go to the same forwarder, so their order is kept while other groups are forwarded in parallel
+            for (int i = 0; i < forwarders; i++) {
+                final BlockingQueue<Message> queue = new ArrayBlockingQueue<>(FORWARDER_CAPACITY);
+                queues.add(queue);
+                Thread thread = new Thread(() -> forward(queue, sink), name + "-" + i);
+                threads.add(thread);
+                thread.start();
+            }
+
+            subscribe();
+        } catch (JMSException | RuntimeException e) {
+            // the forwarders started so far are stopped and the sink is closed
+            stop();
+            throw e;
+        }
+        return this;
+    }
+
+    private void subscribe() throws JMSException {
+        consumer = session.createDurableSubscriber(session.createTopic(prefetch > 0 ? topic + "?consumer.prefetchSize=" + prefetch : topic), subscription);
+        consumer.setMessageListener(this::dispatch);
+    }
+
+    private void dispatch(Message message) {
+        if (!running || recovering) {
+            return;
+        }
+        try {
+            String group = message.getStringProperty("JMSXGroupID");
+            int index = (group != null ? group.hashCode() : next++) & Integer.MAX_VALUE;
+            BlockingQueue<Message> queue = queues.get(index % queues.size());
+            // blocks the listener while the forwarder is full, so the broker stops dispatching to us
+            while (!queue.offer(message, IDLE_TIMEOUT, TimeUnit.MILLISECONDS)) {
+                if (!running || recovering) {
+                    break;
+                }
+            }
+            // a message not handed over is left unacknowledged, the durable subscription gets it again once it is subscribed again
+        } catch (JMSException e) {
+            // the message stays unacknowledged, the subscriber is recreated so that the broker redelivers it
+            MessageLog.failed("topic", topic, e.getMessage());
+            recovering = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // the durable subscription stays registered, the broker keeps collecting its messages until the route is started again
+    @Override
+    public void stop() {
+        running = false;
+        try {
+            if (consumer != null) {
+                consumer.close();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            if (session != null) {
+                session.close();
+            }
+        } catch (JMSException e) {
+            System.out.println(String.format("failed to close durable subscriber (%s)", e.getMessage()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        sink.close();
+    }
+
+    private void forward(BlockingQueue<Message> queue, Sink sink) {
+        // every forwarder keeps up to inFlight messages in flight, the sink completes them from its callbacks
+        final Semaphore window = new Semaphore(inFlight);
+        try {
+            while (running || !queue.isEmpty()) {
+                if (recovering) {
+                    recover(queue, window);
+                    continue;
+                }
+                Message msg = queue.poll(IDLE_TIMEOUT, TimeUnit.MILLISECONDS);
+                if (msg == null || recovering) {
+                    continue;
+                }
+                try {
+                    String correlationId = msg.getJMSCorrelationID();
+                    final long receivedAt = metrics.received(correlationId);
+                    MessageLog.received("correlationId", correlationId);
+
+                    // a grouped message waits until everything in flight is forwarded and holds back the next message until it is forwarded itself, so its group keeps its order
+                    final int permits = msg.getStringProperty("JMSXGroupID") != null ? inFlight : 1;
+                    window.acquire(permits);
+                    if (recovering) {
+                        // e.g. the previous message of its group failed, it comes again after that one
+                        window.release(permits);
+                        continue;
+                    }
+                    boolean forwarding = false;
+                    try {
+                        sink.forward(Collections.singletonList(msg), new Sink.Completion() {
+
+                            @Override
+                            public void forwarded(Message msg) {
+                                metrics.forwarded(receivedAt);
+                                try {
+                                    // with individual acknowledge it is safe to acknowledge from the callback thread, only this message is acknowledged
+                                    msg.acknowledge();
+                                    MessageLog.forwarded("correlationId", msg.getJMSCorrelationID());
+                                } catch (JMSException e) {
+                                    System.out.println(String.format("failed to acknowledge forwarded message (%s)", e.getMessage()));
+                                }
+                            }
+
+                            @Override
+                            public void failed(Message msg, String reason) {
+                                // the message stays unacknowledged, the subscriber is recreated so that the broker redelivers it
+                                recovering = true;
+                                metrics.failed();
+                                try {
+                                    MessageLog.failed("correlationId", msg.getJMSCorrelationID(), reason);
+                                } catch (JMSException e) {
+                                    MessageLog.failed("correlationId", null, reason);
+                                }
+                            }
+
+                            @Override
+                            public void done() {
+                                window.release(permits);
+                            }
+                        });
+                        forwarding = true;
+                    } finally {
+                        // the completion releases the permits, unless the sink failed before it took the message
+                        if (!forwarding) {
+                            window.release(permits);
+                        }
+                    }
+                } catch (JMSException | RuntimeException e) {
+                    // the message stays unacknowledged, the subscriber is recreated so that the broker redelivers it
+                    MessageLog.failed("topic", topic, e.getMessage());
+                    recovering = true;
+                }
+            }
+            window.acquire(inFlight);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // every forwarder waits until its messages in flight are done and drops the messages it has not forwarded yet, they are
+    // unacknowledged as well. The last one recreates the subscriber, the broker then redelivers every unacknowledged message in
+    // order, the failed one ahead of the rest of its group, and dead letters a message once it was redelivered too often
+    private void recover(BlockingQueue<Message> queue, Semaphore window) throws InterruptedException {
+        window.acquire(inFlight);
+        try {
+            queue.clear();
+            synchronized (recovery) {
+                if (!running) {
+                    return;
+                }
+                int round = recoveries;
+                if (++recoveringForwarders < forwarders) {
+                    while (round == recoveries && running) {
+                        recovery.wait(IDLE_TIMEOUT);
+                    }
+                    return;
+                }
+                try {
+                    // once it is closed the listener hands over no more messages
+                    consumer.close();
+                    for (BlockingQueue<Message> forwarderQueue : queues) {
+                        forwarderQueue.clear();
+                    }
+                    recovering = false;
+                    subscribe();
+                } catch (JMSException e) {
+                    // still recovering, the forwarders try again
+                    System.out.println(String.format("failed to recreate durable subscriber (%s)", e.getMessage()));
+                    recovering = true;
+                    recovery.wait(IDLE_TIMEOUT);
+                } finally {
+                    recoveringForwarders = 0;
+                    recoveries++;
+                    recovery.notifyAll();
+                }
+            }
+        } finally {
+            window.release(inFlight);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.aws.sample.amazonmqintegration.core;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A latency histogram in microseconds with logarithmic buckets, like HdrHistogram: every power of two is split into 32 buckets,
+ * so a percentile is at most about 3% above the true value. Recording only increments a counter, it neither locks nor allocates.
+ * Latencies above about 19 hours count as 19 hours.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final long MAX_MICROS = (1L << 36) - 1;
+    private static final int BUCKETS = index(MAX_MICROS) + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    public void recordSince(long startNanos) {
+        record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos));
+    }
+
+    public void record(long micros) {
+        long value = Math.min(Math.max(micros, 0), MAX_MICROS);
+        counts.incrementAndGet(index(value));
+        sum.add(value);
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+
+    // values below 64 get a bucket of their own, above that the 5 bits after the highest one bit select the bucket
+    private static int index(long value) {
+        int shift = Math.max(0, 64 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS + 1));
+        return (shift << SUB_BUCKET_BITS) + (int) (value >>> shift);
+    }
+
+    // the largest value which falls into the bucket
+    private static long highestValue(int index) {
+        int shift = index < 2 * SUB_BUCKETS ? 0 : (index >> SUB_BUCKET_BITS) - 1;
+        return ((long) (index - (shift << SUB_BUCKET_BITS) + 1) << shift) - 1;
+    }
+
+    // starts over, e.g. to look at the latencies after a configuration change only
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        sum.reset();
+        max.set(0);
+    }
+
+    // the buckets are read one by one while other threads keep recording, so a snapshot can be off by the latencies recorded meanwhile
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+            count += copy[i];
+        }
+        return new Snapshot(copy, count, sum.sum(), max.get());
+    }
+
+    /**
+     * The latencies recorded so far, all values in microseconds. Exposed over JMX as composite data.
+     */
+    public static class Snapshot {
+
+        private final long count;
+        private final long mean;
+        private final long p50;
+        private final long p90;
+        private final long p99;
+        private final long p999;
+        private final long max;
+
+        private Snapshot(long[] counts, long count, long sum, long max) {
+            this.count = count;
+            this.mean = count > 0 ? sum / count : 0;
+            this.p50 = percentile(counts, count, 0.5, max);
+            this.p90 = percentile(counts, count, 0.9, max);
+            this.p99 = percentile(counts, count, 0.99, max);
+            this.p999 = percentile(counts, count, 0.999, max);
+            this.max = max;
+        }
+
+        private static long percentile(long[] counts, long count, double percentile, long max) {
+            long rank = (long) Math.ceil(count * percentile);
+            long seen = 0;
+            for (int i = 0; i < counts.length && rank > 0; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(highestValue(i), max);
+                }
+            }
+            return 0;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getMeanMicros() {
+            return mean;
+        }
+
+        public long getP50Micros() {
+            return p50;
+        }
+
+        public long getP90Micros() {
+            return p90;
+        }
+
+        public long getP99Micros() {
+            return p99;
+        }
+
+        public long getP999Micros() {
+            return p999;
+        }
+
+        public long getMaxMicros() {
+            return max;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.aws.sample.amazonmqintegration.core;
+
+import javax.jms.Connection;
+import javax.jms.JMSException;
+
+import org.apache.activemq.ActiveMQConnection;
+
+/**
+ * Opens the broker connection of a {@link JmsSink} on first use and keeps it for the following invocations of a warm Lambda
+ * container. A connection which is closed or whose transport failed is replaced before it is used again.
+ */
+public class LazyTopicSink {
+
+    private final BrokerConnector broker;
+    private final String clientId;
+    private final String topic;
+    private final boolean transacted;
+
+    private Connection connection;
+    private JmsSink sink;
+
+    public LazyTopicSink(BrokerConnector broker, String clientId, String topic, boolean transacted) {
+        this.broker = broker;
+        this.clientId = clientId;
+        this.topic = topic;
+        this.transacted = transacted;
+    }
+
+    public synchronized JmsSink get() throws JMSException {
+        if (sink == null || !healthy()) {
+            reset();
+            connection = broker.connect(clientId);
+            sink = JmsSink.toTopic(connection, topic, transacted);
+        }
+        return sink;
+    }
+
+    // starts connecting right away, the first get() only waits for the part of the handshake which is still left
+    public void connectInBackground() {
+        Thread connector = new Thread(() -> {
+            try {
+                get();
+            } catch (JMSException e) {
+                // the first get() tries again
+                System.out.println(String.format("failed to connect in the background (%s)", e.getMessage()));
+            }
+        }, "broker-connector");
+        connector.setDaemon(true);
+        connector.start();
+    }
+
+    // drops the connection, the next get() connects again
+    public synchronized void reset() {
+        if (connection != null) {
+            try {
+                // the broker only accepts the client id again once the old connection is gone
+                connection.close();
+            } catch (JMSException e) {
+                System.out.println(String.format("failed to close broker connection (%s)", e.getMessage()));
+            }
+        }
+        connection = null;
+        sink = null;
+    }
+
+    // only looks at the state of the connection, no round trip to the broker
+    private boolean healthy() {
+        ActiveMQConnection conn = (ActiveMQConnection) connection;
+        return !conn.isClosed() && !conn.isClosing() && !conn.isTransportFailed();
+    }
+}
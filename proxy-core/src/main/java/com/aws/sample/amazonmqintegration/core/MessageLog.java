@@ -0,0 +1,254 @@
+package com.aws.sample.amazonmqintegration.core;
+
+import static com.aws.sample.amazonmqintegration.core.ServiceConfiguration.PROXY_CONFIGURATION;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The per-message log of the proxy. The forwarding threads only put the event into a preallocated ring buffer, a single writer
+ * thread formats it as one JSON line and writes it to stdout, so no forwarding thread waits for the lock of System.out or
+ * allocates for the log. With /PROXY/LOG-LEVEL (OFF, ERROR or INFO, default INFO) the received and forwarded events can be
+ * switched off, /PROXY/LOG-SAMPLE-RATE (default 1) logs only every n-th of them on average. Failures are never sampled. When the
+ * writer falls behind, received and forwarded events are dropped and counted instead of blocking, failures wait. A request of a
+ * request-response route without a response within the timeout is logged as timedOut unless the level is OFF, never sampled but
+ * dropped like received and forwarded events, as it is logged while its route tracks the correlation ids. The writer sleeps while
+ * the ring buffer is empty and is woken by the next event, flush() waits until everything logged so far is written.
+ */
+public final class MessageLog {
+
+    public static final String LOG_LEVEL = PROXY_CONFIGURATION + "/LOG-LEVEL";
+    public static final String LOG_SAMPLE_RATE = PROXY_CONFIGURATION + "/LOG-SAMPLE-RATE";
+
+    public enum Level {
+        OFF, ERROR, INFO
+    }
+
+    private static final int CAPACITY = 8192;
+    private static final int MASK = CAPACITY - 1;
+    private static final long IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long FLUSH_TIMEOUT_MILLIS = 1000;
+
+    private static final byte RECEIVED = 0;
+    private static final byte FORWARDED = 1;
+    private static final byte FAILED = 2;
+    private static final byte TIMED_OUT = 3;
+    private static final String[] EVENTS = { "received", "forwarded", "failed", "timedOut" };
+
+    private static final MessageLog LOG = new MessageLog();
+
+    private volatile Level level = Level.INFO;
+    private volatile int sampleRate = 1;
+
+    private final long[] timestamps = new long[CAPACITY];
+    private final byte[] events = new byte[CAPACITY];
+    private final String[] idNames = new String[CAPACITY];
+    private final String[] ids = new String[CAPACITY];
+    private final String[] reasons = new String[CAPACITY];
+    private final String[] threads = new String[CAPACITY];
+    // the sequence number + 1 of the event a slot holds, set once the slot is completely written
+    private final AtomicLongArray published = new AtomicLongArray(CAPACITY);
+    private final AtomicLong claimed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile long consumed;
+    private volatile long flushed;
+    private final Thread writer;
+    // set by the writer before it parks, so a publisher knows it has to wake it up
+    private volatile boolean idle;
+
+    // only used by the writer thread
+    private final StringBuilder line = new StringBuilder(256);
+    private final byte[] out = new byte[64 * 1024];
+    private int outLength;
+
+    private MessageLog() {
+        writer = new Thread(this::write, "message-log");
+        writer.setDaemon(true);
+        writer.start();
+        // gives the writer a moment to write what is still in the ring buffer
+        Runtime.getRuntime().addShutdownHook(new Thread(this::awaitWritten, "message-log-shutdown"));
+    }
+
+    public static void configure(ServiceConfiguration conf) {
+        String level = conf.get(LOG_LEVEL);
+        try {
+            LOG.level = level != null ? Level.valueOf(level.trim().toUpperCase()) : Level.INFO;
+        } catch (IllegalArgumentException e) {
+            System.out.println(String.format("unknown log level '%s', logging at INFO", level));
+            LOG.level = Level.INFO;
+        }
+        LOG.sampleRate = Math.max(1, conf.getInt(LOG_SAMPLE_RATE, 1));
+    }
+
+    // idName names the id in the log line, e.g. correlationId or messageId
+    public static void received(String idName, String id) {
+        if (LOG.sampled()) {
+            LOG.publish(RECEIVED, idName, id, null, false);
+        }
+    }
+
+    public static void forwarded(String idName, String id) {
+        if (LOG.sampled()) {
+            LOG.publish(FORWARDED, idName, id, null, false);
+        }
+    }
+
+    public static void failed(String idName, String id, String reason) {
+        if (LOG.level != Level.OFF) {
+            // failures are rare and must not get lost, so they wait for the writer
+            LOG.publish(FAILED, idName, id, reason, true);
+        }
+    }
+
+    public static void timedOut(String idName, String id) {
+        if (LOG.level != Level.OFF) {
+            LOG.publish(TIMED_OUT, idName, id, null, false);
+        }
+    }
+
+    // waits (at most a second) until every event logged so far is written to stdout, e.g. before a Lambda function is frozen
+    public static void flush() {
+        LOG.awaitWritten();
+    }
+
+    private void awaitWritten() {
+        long written = claimed.get();
+        long deadline = System.currentTimeMillis() + FLUSH_TIMEOUT_MILLIS;
+        while (flushed < written && System.currentTimeMillis() < deadline) {
+            LockSupport.parkNanos(IDLE_NANOS);
+        }
+    }
+
+    private boolean sampled() {
+        int rate = sampleRate;
+        return level == Level.INFO && (rate == 1 || ThreadLocalRandom.current().nextInt(rate) == 0);
+    }
+
+    private void publish(byte event, String idName, String id, String reason, boolean wait) {
+        long sequence;
+        while (true) {
+            sequence = claimed.get();
+            if (sequence - consumed < CAPACITY) {
+                if (claimed.compareAndSet(sequence, sequence + 1)) {
+                    break;
+                }
+            } else if (wait) {
+                LockSupport.parkNanos(IDLE_NANOS);
+            } else {
+                dropped.incrementAndGet();
+                return;
+            }
+        }
+
+        int slot = (int) (sequence & MASK);
+        timestamps[slot] = System.currentTimeMillis();
+        events[slot] = event;
+        idNames[slot] = idName;
+        ids[slot] = id;
+        reasons[slot] = reason;
+        threads[slot] = Thread.currentThread().getName();
+        // a volatile write, so either the writer sees the event before it parks or we see that it is idle
+        published.set(slot, sequence + 1);
+        if (idle) {
+            LockSupport.unpark(writer);
+        }
+    }
+
+    private void write() {
+        long next = 0;
+        while (true) {
+            int slot = (int) (next & MASK);
+            if (published.get(slot) != next + 1) {
+                writeOut();
+                idle = true;
+                if (published.get(slot) != next + 1) {
+                    LockSupport.park(this);
+                }
+                idle = false;
+                continue;
+            }
+
+            line.setLength(0);
+            line.append("{\"timestamp\":").append(timestamps[slot])
+                .append(",\"event\":\"").append(EVENTS[events[slot]])
+                .append("\",\"thread\":");
+            appendJson(threads[slot]);
+            line.append(",\"").append(idNames[slot]).append("\":");
+            appendJson(ids[slot]);
+            if (reasons[slot] != null) {
+                line.append(",\"reason\":");
+                appendJson(reasons[slot]);
+            }
+            line.append("}\n");
+            // the slot no longer keeps the strings alive
+            ids[slot] = null;
+            reasons[slot] = null;
+            consumed = ++next;
+            append(line);
+
+            long lost = dropped.get();
+            if (lost > 0 && dropped.compareAndSet(lost, 0)) {
+                line.setLength(0);
+                line.append("{\"timestamp\":").append(System.currentTimeMillis()).append(",\"event\":\"dropped\",\"count\":").append(lost).append("}\n");
+                append(line);
+            }
+        }
+    }
+
+    private void appendJson(String value) {
+        if (value == null) {
+            line.append("null");
+            return;
+        }
+        line.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                line.append('\\').append(c);
+            } else if (c < 0x20) {
+                line.append("\\u00").append(Character.forDigit(c >> 4, 16)).append(Character.forDigit(c & 0xF, 16));
+            } else {
+                line.append(c);
+            }
+        }
+        line.append('"');
+    }
+
+    // UTF-8 into the reused output buffer, without a String or a byte array per line
+    private void append(CharSequence chars) {
+        for (int i = 0; i < chars.length(); i++) {
+            if (outLength > out.length - 4) {
+                writeOut();
+            }
+            char c = chars.charAt(i);
+            if (c < 0x80) {
+                out[outLength++] = (byte) c;
+            } else if (c < 0x800) {
+                out[outLength++] = (byte) (0xC0 | (c >> 6));
+                out[outLength++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < chars.length() && Character.isLowSurrogate(chars.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, chars.charAt(++i));
+                out[outLength++] = (byte) (0xF0 | (codePoint >> 18));
+                out[outLength++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                out[outLength++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                out[outLength++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else {
+                out[outLength++] = (byte) (0xE0 | (c >> 12));
+                out[outLength++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                out[outLength++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+    }
+
+    private void writeOut() {
+        if (outLength > 0) {
+            System.out.write(out, 0, outLength);
+            System.out.flush();
+            outLength = 0;
+        }
+        flushed = consumed;
+    }
+}
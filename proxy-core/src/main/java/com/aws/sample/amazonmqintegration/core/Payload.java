@@ -0,0 +1,159 @@
+package com.aws.sample.amazonmqintegration.core;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.zip.InflaterInputStream;
+
+import javax.jms.BytesMessage;
+import javax.jms.JMSException;
+import javax.jms.MapMessage;
+import javax.jms.Message;
+import javax.jms.ObjectMessage;
+import javax.jms.Session;
+import javax.jms.TextMessage;
+
+import org.apache.activemq.command.ActiveMQMessage;
+import org.apache.activemq.util.ByteSequence;
+
+/**
+ * The body of a JMS message on its way through the proxy. Text is forwarded as the SQS or SNS message body. The bodies of bytes,
+ * map and object messages are forwarded as ActiveMQ stores them, in the binary message attribute JMSBody, and the attribute
+ * JMSMessageType tells the opposite leg which message to rebuild. The proxy neither copies nor unmarshals them.
+ */
+public final class Payload {
+
+    public static final String MESSAGE_TYPE = "JMSMessageType";
+    public static final String BINARY_BODY = "JMSBody";
+    public static final String BYTES = "bytes";
+    public static final String MAP = "map";
+    public static final String OBJECT = "object";
+
+    private static final ByteBuffer EMPTY = ByteBuffer.allocate(0);
+
+    private final String type;
+    private final String text;
+    private final ByteBuffer binary;
+
+    private Payload(String type, String text, ByteBuffer binary) {
+        this.type = type;
+        this.text = text;
+        this.binary = binary;
+    }
+
+    public static Payload text(String text) {
+        return new Payload(null, text, null);
+    }
+
+    public static Payload binary(String type, ByteBuffer binary) {
+        return new Payload(type, null, binary != null ? binary : EMPTY);
+    }
+
+    public static Payload of(Message message) throws JMSException {
+        if (message instanceof TextMessage) {
+            return text(((TextMessage) message).getText());
+        }
+
+        String type;
+        if (message instanceof BytesMessage) {
+            type = BYTES;
+        } else if (message instanceof MapMessage) {
+            type = MAP;
+        } else if (message instanceof ObjectMessage) {
+            type = OBJECT;
+        } else {
+            throw new JMSException(String.format("Unknown message type '%s'", message));
+        }
+
+        ActiveMQMessage activeMQMessage = (ActiveMQMessage) message;
+        // received messages already carry their marshalled body, only a message created in this JVM still has to marshal it
+        activeMQMessage.storeContent();
+        ByteSequence content = activeMQMessage.getContent();
+        if (content == null) {
+            return binary(type, EMPTY);
+        }
+        if (!activeMQMessage.isCompressed()) {
+            // sliced, so the buffer starts at the content, the SDK rewinds it to compute the MD5 of the attribute
+            return binary(type, ByteBuffer.wrap(content.getData(), content.getOffset(), content.getLength()).slice());
+        }
+
+        // the producer compressed the body, we forward it uncompressed, as it would have been sent without compression
+        if (message instanceof BytesMessage) {
+            BytesMessage bytesMessage = (BytesMessage) message;
+            bytesMessage.reset();
+            byte[] body = new byte[(int) bytesMessage.getBodyLength()];
+            bytesMessage.readBytes(body);
+            bytesMessage.reset();
+            return binary(type, ByteBuffer.wrap(body));
+        }
+        return binary(type, ByteBuffer.wrap(inflate(content)));
+    }
+
+    public boolean isText() {
+        return type == null;
+    }
+
+    // null for text
+    public String type() {
+        return type;
+    }
+
+    public String text() {
+        return text;
+    }
+
+    public ByteBuffer binary() {
+        return binary;
+    }
+
+    public Message toMessage(Session session) throws JMSException {
+        if (type == null) {
+            return session.createTextMessage(text);
+        }
+
+        Message message;
+        switch (type) {
+            case BYTES:
+                message = session.createBytesMessage();
+                break;
+            case MAP:
+                message = session.createMapMessage();
+                break;
+            case OBJECT:
+                message = session.createObjectMessage();
+                break;
+            default:
+                throw new JMSException(String.format("Unknown message type '%s'", type));
+        }
+
+        // the body is taken over as it is, only the consumer of the message unmarshals it
+        ByteSequence content;
+        if (binary.hasArray()) {
+            content = new ByteSequence(binary.array(), binary.arrayOffset() + binary.position(), binary.remaining());
+        } else {
+            byte[] body = new byte[binary.remaining()];
+            binary.duplicate().get(body);
+            content = new ByteSequence(body);
+        }
+        ((ActiveMQMessage) message).setContent(content);
+        return message;
+    }
+
+    private static byte[] inflate(ByteSequence content) throws JMSException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(content.getLength() * 4);
+        try (InputStream in = new InflaterInputStream(new ByteArrayInputStream(content.getData(), content.getOffset(), content.getLength()))) {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+        } catch (IOException e) {
+            JMSException jmsException = new JMSException(String.format("failed to inflate message body (%s)", e.getMessage()));
+            jmsException.setLinkedException(e);
+            throw jmsException;
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,179 @@
+package com.aws.sample.amazonmqintegration.core;
+
+import static com.aws.sample.amazonmqintegration.core.ServiceConfiguration.PROXY_CONFIGURATION;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compresses payloads above a threshold into gzip + base64 and offloads payloads which are still too large for SQS and SNS to a
+ * {@link BlobStore}. The message attributes ContentEncoding and PayloadReference tell the opposite leg how to get the payload
+ * back. Decoding always works, so only the sending leg needs to enable the codec.
+ */
+public class PayloadCodec {
+
+    public static final String COMPRESSION_THRESHOLD = PROXY_CONFIGURATION + "/PAYLOAD-COMPRESSION-THRESHOLD";
+    public static final String BLOB_STORE_DIRECTORY = PROXY_CONFIGURATION + "/BLOB-STORE-DIRECTORY";
+    public static final String BLOB_STORE_RETENTION = PROXY_CONFIGURATION + "/BLOB-STORE-RETENTION-HOURS";
+
+    public static final String CONTENT_ENCODING = "ContentEncoding";
+    public static final String PAYLOAD_REFERENCE = "PayloadReference";
+    public static final String GZIP = "gzip";
+    public static final String GZIP_BASE64 = "gzip+base64";
+
+    // SQS and SNS accept at most 256 KB per message including its attributes, we leave room for the attributes
+    public static final int MAX_PAYLOAD_SIZE = 250 * 1024;
+
+    public static final PayloadCodec NONE = new PayloadCodec(-1, null);
+
+    private final int compressionThreshold;
+    private final BlobStore blobStore;
+
+    public PayloadCodec(int compressionThreshold, BlobStore blobStore) {
+        this.compressionThreshold = compressionThreshold;
+        this.blobStore = blobStore;
+    }
+
+    public static PayloadCodec fromConfiguration(ServiceConfiguration conf) {
+        try {
+            String directory = conf.get(BLOB_STORE_DIRECTORY);
+            long retention = conf.getLong(BLOB_STORE_RETENTION, TimeUnit.MILLISECONDS.toHours(FileSystemBlobStore.DEFAULT_RETENTION_MILLIS));
+            return new PayloadCodec(conf.getInt(COMPRESSION_THRESHOLD, -1),
+                    directory != null ? new FileSystemBlobStore(Paths.get(directory)).withRetention(TimeUnit.HOURS.toMillis(retention)) : null);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    // stops sweeping the blob store, a codec still encoding and decoding in a stopping route keeps working
+    public void close() {
+        if (blobStore != null) {
+            blobStore.close();
+        }
+    }
+
+    /**
+     * The payload as it goes over the wire, with the values of the ContentEncoding and PayloadReference attributes (or null).
+     */
+    public static class Encoded {
+
+        public final String body;
+        public final String contentEncoding;
+        public final String payloadReference;
+
+        Encoded(String body, String contentEncoding, String payloadReference) {
+            this.body = body;
+            this.contentEncoding = contentEncoding;
+            this.payloadReference = payloadReference;
+        }
+    }
+
+    public Encoded encode(String text) throws IOException {
+        int size = utf8Length(text);
+        if ((compressionThreshold < 0 || size < compressionThreshold) && (blobStore == null || size <= MAX_PAYLOAD_SIZE)) {
+            return new Encoded(text, null, null);
+        }
+
+        byte[] payload = text.getBytes(StandardCharsets.UTF_8);
+        String encoding = null;
+        if (compressionThreshold >= 0 && size >= compressionThreshold) {
+            payload = gzip(payload);
+            encoding = GZIP;
+            // base64 grows the payload by a third
+            if (blobStore == null || (payload.length + 2) / 3 * 4 <= MAX_PAYLOAD_SIZE) {
+                return new Encoded(Base64.getEncoder().encodeToString(payload), GZIP_BASE64, null);
+            }
+        }
+
+        // SQS and SNS refuse an empty body, so the body repeats the reference
+        String reference = blobStore.put(payload);
+        return new Encoded(reference, encoding, reference);
+    }
+
+    public String decode(String body, String contentEncoding, String payloadReference) throws IOException {
+        if (payloadReference != null) {
+            if (blobStore == null) {
+                throw new IOException(String.format("no blob store configured to load payload '%s'", payloadReference));
+            }
+            byte[] payload = blobStore.get(payloadReference);
+            return new String(GZIP.equals(contentEncoding) ? gunzip(payload) : payload, StandardCharsets.UTF_8);
+        }
+        if (GZIP_BASE64.equals(contentEncoding)) {
+            return new String(gunzip(Base64.getDecoder().decode(body)), StandardCharsets.UTF_8);
+        }
+        return body;
+    }
+
+    // binary payloads are not compressed, they are only offloaded if they are too large, the reference is null otherwise
+    public String offload(ByteBuffer payload) throws IOException {
+        if (blobStore == null || payload.remaining() <= MAX_PAYLOAD_SIZE) {
+            return null;
+        }
+        byte[] bytes = new byte[payload.remaining()];
+        payload.duplicate().get(bytes);
+        return blobStore.put(bytes);
+    }
+
+    // the message type and the binary body are the values of the JMSMessageType and JMSBody attributes (or null)
+    public Payload decode(String body, String contentEncoding, String payloadReference, String messageType, ByteBuffer binaryBody) throws IOException {
+        if (messageType == null) {
+            return Payload.text(decode(body, contentEncoding, payloadReference));
+        }
+        if (payloadReference != null) {
+            if (blobStore == null) {
+                throw new IOException(String.format("no blob store configured to load payload '%s'", payloadReference));
+            }
+            return Payload.binary(messageType, ByteBuffer.wrap(blobStore.get(payloadReference)));
+        }
+        return Payload.binary(messageType, binaryBody);
+    }
+
+    // the UTF-8 size of the text without encoding it
+    public static int utf8Length(CharSequence text) {
+        int length = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c)) {
+                length += 4;
+                i++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    private static byte[] gzip(byte[] payload) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(payload.length / 4 + 64);
+        try (OutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(payload);
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] gunzip(byte[] payload) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(payload.length * 4);
+        try (InputStream gzip = new GZIPInputStream(new ByteArrayInputStream(payload))) {
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = gzip.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+        }
+        return out.toByteArray();
+    }
+}
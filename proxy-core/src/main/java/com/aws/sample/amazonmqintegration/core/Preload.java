@@ -0,0 +1,19 @@
+package com.aws.sample.amazonmqintegration.core;
+
+/**
+ * Loads the classes a proxy needs to start, without connecting anywhere. Running it with -XX:DumpLoadedClassList gives the
+ * class list for an application class-data sharing archive.
+ */
+public final class Preload {
+
+    private Preload() {
+    }
+
+    public static void main(String... classNames) throws Exception {
+        BrokerConnector.warmUp();
+        Class.forName("com.amazonaws.services.simplesystemsmanagement.AWSSimpleSystemsManagementClientBuilder");
+        for (String className : classNames) {
+            Class.forName(className);
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package com.aws.sample.amazonmqintegration.core;
+
+import static com.aws.sample.amazonmqintegration.core.ServiceConfiguration.PROXY_CONFIGURATION;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.jms.Connection;
+import javax.jms.JMSException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import com.amazonaws.services.sns.AmazonSNSAsync;
+import com.amazonaws.services.sqs.AmazonSQSAsync;
+
+/**
+ * The broker connections and AWS clients shared by all routes of one proxy process. Everything is created on first use.
+ */
+public class ProxyContext {
+
+    public static final String AWS_THREADS = PROXY_CONFIGURATION + "/AWS-THREADS";
+
+    // the settings every route encodes its messages with
+    private static final List<String> CODEC_PARAMETERS = Arrays.asList(
+        PayloadCodec.COMPRESSION_THRESHOLD, PayloadCodec.BLOB_STORE_DIRECTORY, PayloadCodec.BLOB_STORE_RETENTION, HeaderCodec.NAMED_PROPERTIES);
+
+    private final BrokerConnector broker;
+    private final String requestClientId;
+    private final String responseClientId;
+    private final int awsThreads;
+
+    private Connection requestConnection;
+    private Connection responseConnection;
+    private Connection asyncProducerConnection;
+    private final Map<String, Connection> subscriberConnections = new HashMap<>();
+    private AmazonSQSAsync sqsClient;
+    private AmazonSNSAsync snsClient;
+    private PayloadCodec payloadCodec;
+    private HeaderCodec headerCodec;
+    private Map<String, String> codecParameters;
+    private final Map<String, RouteMetrics> metrics = new HashMap<>();
+
+    public ProxyContext(ServiceConfiguration conf, String requestClientId, String responseClientId) {
+        this.broker = new BrokerConnector(conf);
+        this.requestClientId = requestClientId;
+        this.responseClientId = responseClientId;
+        this.awsThreads = conf.getInt(AWS_THREADS, 64);
+        applyCodecs(conf);
+        register(broker.failoverMonitor(), "type=Broker");
+    }
+
+    // requests and responses flow through their own connection, so neither direction slows down the other
+    public synchronized Connection requestConnection() throws JMSException {
+        if (requestConnection == null) {
+            requestConnection = broker.connect(requestClientId);
+        }
+        return requestConnection;
+    }
+
+    public synchronized Connection responseConnection() throws JMSException {
+        if (responseConnection == null) {
+            responseConnection = broker.connect(responseClientId);
+        }
+        return responseConnection;
+    }
+
+    // every producer borrows a connection from the pool, the pool spreads them over its connections. Closing the sink gives it back
+    public Connection producerConnection() throws JMSException {
+        return broker.pooled();
+    }
+
+    // asynchronous sends pipeline their messages, so the sinks of all routes share one connection
+    public Connection producerConnection(boolean async) throws JMSException {
+        if (!async) {
+            return producerConnection();
+        }
+        synchronized (this) {
+            if (asyncProducerConnection == null) {
+                asyncProducerConnection = broker.connect();
+            }
+            return asyncProducerConnection;
+        }
+    }
+
+    public FailoverMonitor failoverMonitor() {
+        return broker.failoverMonitor();
+    }
+
+    // durable subscriptions are registered under the client id of their connection, so it must never change
+    public synchronized Connection subscriberConnection(String clientId) throws JMSException {
+        Connection connection = subscriberConnections.get(clientId);
+        if (connection == null) {
+            connection = broker.connect(clientId);
+            subscriberConnections.put(clientId, connection);
+        }
+        return connection;
+    }
+
+    // a restarted route keeps counting where it stopped
+    public synchronized RouteMetrics metrics(String route) {
+        RouteMetrics routeMetrics = metrics.get(route);
+        if (routeMetrics == null) {
+            routeMetrics = new RouteMetrics();
+            metrics.put(route, routeMetrics);
+            register(routeMetrics, "type=Route,name=" + route);
+        }
+        return routeMetrics;
+    }
+
+    // the metrics are optional, the proxy runs on without them. A later context of the same process, e.g. of a warm Lambda
+    // container, takes over the names of the one before
+    private static synchronized void register(Object mbean, String name) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName("com.aws.sample.amazonmqintegration:" + name);
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+            server.registerMBean(mbean, objectName);
+        } catch (JMException e) {
+            System.out.println(String.format("failed to register %s in JMX (%s)", name, e.getMessage()));
+        }
+    }
+
+    // true if the codec settings changed, the routes started from now on use the new codecs
+    public synchronized boolean applyCodecs(ServiceConfiguration conf) {
+        Map<String, String> parameters = conf.filter(CODEC_PARAMETERS::contains);
+        if (parameters.equals(codecParameters)) {
+            return false;
+        }
+        if (payloadCodec != null) {
+            payloadCodec.close();
+        }
+        payloadCodec = PayloadCodec.fromConfiguration(conf);
+        headerCodec = HeaderCodec.fromConfiguration(conf);
+        codecParameters = parameters;
+        return true;
+    }
+
+    public synchronized PayloadCodec payloadCodec() {
+        return payloadCodec;
+    }
+
+    public synchronized HeaderCodec headerCodec() {
+        return headerCodec;
+    }
+
+    // clients of other endpoints than the AWS ones, e.g. the local stand-ins of the load test, instead of the clients from AwsClients
+    public synchronized ProxyContext withAwsClients(AmazonSQSAsync sqsClient, AmazonSNSAsync snsClient) {
+        this.sqsClient = sqsClient;
+        this.snsClient = snsClient;
+        return this;
+    }
+
+    public synchronized AmazonSQSAsync sqsClient() {
+        if (sqsClient == null) {
+            sqsClient = AwsClients.sqs(awsThreads);
+        }
+        return sqsClient;
+    }
+
+    public synchronized AmazonSNSAsync snsClient() {
+        if (snsClient == null) {
+            snsClient = AwsClients.sns(awsThreads);
+        }
+        return snsClient;
+    }
+}
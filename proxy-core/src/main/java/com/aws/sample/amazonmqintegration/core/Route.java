@@ -0,0 +1,18 @@
+package com.aws.sample.amazonmqintegration.core;
+
+import static com.aws.sample.amazonmqintegration.core.ServiceConfiguration.PROXY_CONFIGURATION;
+
+import javax.jms.JMSException;
+
+public interface Route {
+
+    // the integration pattern, e.g. POINT-TO-POINT-ONE-WAY-TRADITIONAL, which names its queues, endpoints and settings
+    String name();
+
+    // returns what has been started, to stop the route again when its configuration changes
+    Stoppable start(ServiceConfiguration conf, ProxyContext context) throws JMSException;
+
+    default String configuration() {
+        return PROXY_CONFIGURATION + "/" + name();
+    }
+}
@@ -0,0 +1,185 @@
+package com.aws.sample.amazonmqintegration.core;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the messages of a route and records how long they take, separately for both legs: JMS to SQS or SNS, and SQS to the
+ * broker. A request-response route additionally matches every response with its request by their correlation id: it records the
+ * round trip and counts the requests without a response within the timeout, the late responses and the ones without a request.
+ * The counters and histograms neither lock nor allocate, the metrics of a route outlive its restarts.
+ */
+public class RouteMetrics implements RouteMetricsMXBean {
+
+    private final Leg toAws = new Leg(this);
+    private final Leg toBroker = new Leg(this);
+    private final LatencyHistogram roundTrip = new LatencyHistogram();
+    private final LongAdder timedOut = new LongAdder();
+    private final LongAdder lateResponses = new LongAdder();
+    private final LongAdder unmatchedResponses = new LongAdder();
+    private final LongAdder untrackedRequests = new LongAdder();
+    private volatile Leg requests;
+    private volatile CorrelationTracker tracker;
+
+    /**
+     * One direction of a route. The sources and sinks report every message: received when it arrived, then either forwarded,
+     * with the time it arrived, or failed.
+     */
+    public static class Leg {
+
+        // reports to no route, for sources and sinks outside of a route
+        public static final Leg NONE = new Leg(new RouteMetrics());
+
+        private final RouteMetrics route;
+        private final LongAdder received = new LongAdder();
+        private final LongAdder forwarded = new LongAdder();
+        private final LongAdder failed = new LongAdder();
+        private final LatencyHistogram latency = new LatencyHistogram();
+
+        private Leg(RouteMetrics route) {
+            this.route = route;
+        }
+
+        // returns the time the message arrived, to hand it to forwarded later
+        public long received(String correlationId) {
+            long now = System.nanoTime();
+            received.increment();
+            route.received(this, correlationId, now);
+            return now;
+        }
+
+        public void forwarded(long receivedAt) {
+            forwarded.increment();
+            latency.recordSince(receivedAt);
+        }
+
+        public void failed() {
+            failed.increment();
+        }
+    }
+
+    // the leg from the broker to SQS or SNS
+    public Leg toAws() {
+        return toAws;
+    }
+
+    // the leg from SQS to the broker
+    public Leg toBroker() {
+        return toBroker;
+    }
+
+    // the requests of a request-response route take this leg, its responses the other one. A restart with the same settings keeps
+    // waiting for the responses of the requests before it
+    public synchronized RouteMetrics withRequests(Leg leg, long timeoutMillis, int maxOutstanding) {
+        CorrelationTracker current = tracker;
+        if (current == null || current.timeoutNanos() != TimeUnit.MILLISECONDS.toNanos(timeoutMillis) || current.capacity() != maxOutstanding) {
+            tracker = new CorrelationTracker(TimeUnit.MILLISECONDS.toNanos(timeoutMillis), maxOutstanding, CorrelationTracker.STRIPES, timedOut);
+        }
+        requests = leg;
+        return this;
+    }
+
+    private void received(Leg leg, String correlationId, long now) {
+        Leg requestLeg = requests;
+        if (requestLeg == null || correlationId == null) {
+            return;
+        }
+        if (leg == requestLeg) {
+            if (!tracker.request(correlationId, now)) {
+                untrackedRequests.increment();
+            }
+        } else {
+            long nanos = tracker.response(correlationId, now);
+            if (nanos >= 0) {
+                roundTrip.record(TimeUnit.NANOSECONDS.toMicros(nanos));
+            } else if (nanos == CorrelationTracker.LATE) {
+                lateResponses.increment();
+            } else {
+                unmatchedResponses.increment();
+            }
+        }
+    }
+
+    @Override
+    public long getReceivedFromBroker() {
+        return toAws.received.sum();
+    }
+
+    @Override
+    public long getForwardedToAws() {
+        return toAws.forwarded.sum();
+    }
+
+    @Override
+    public long getFailedToAws() {
+        return toAws.failed.sum();
+    }
+
+    @Override
+    public LatencyHistogram.Snapshot getLatencyToAws() {
+        return toAws.latency.snapshot();
+    }
+
+    @Override
+    public long getReceivedFromSqs() {
+        return toBroker.received.sum();
+    }
+
+    @Override
+    public long getForwardedToBroker() {
+        return toBroker.forwarded.sum();
+    }
+
+    @Override
+    public long getFailedToBroker() {
+        return toBroker.failed.sum();
+    }
+
+    @Override
+    public LatencyHistogram.Snapshot getLatencyToBroker() {
+        return toBroker.latency.snapshot();
+    }
+
+    @Override
+    public LatencyHistogram.Snapshot getRoundTrip() {
+        return roundTrip.snapshot();
+    }
+
+    @Override
+    public int getOutstandingRequests() {
+        CorrelationTracker current = tracker;
+        return current != null ? current.outstanding(System.nanoTime()) : 0;
+    }
+
+    @Override
+    public long getTimedOutRequests() {
+        // without traffic nothing else expires the requests
+        CorrelationTracker current = tracker;
+        if (current != null) {
+            current.expire(System.nanoTime());
+        }
+        return timedOut.sum();
+    }
+
+    @Override
+    public long getLateResponses() {
+        return lateResponses.sum();
+    }
+
+    @Override
+    public long getUnmatchedResponses() {
+        return unmatchedResponses.sum();
+    }
+
+    @Override
+    public long getUntrackedRequests() {
+        return untrackedRequests.sum();
+    }
+
+    @Override
+    public void resetLatencies() {
+        toAws.latency.reset();
+        toBroker.latency.reset();
+        roundTrip.reset();
+    }
+}
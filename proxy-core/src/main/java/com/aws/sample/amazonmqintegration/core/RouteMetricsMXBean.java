@@ -0,0 +1,46 @@
+package com.aws.sample.amazonmqintegration.core;
+
+/**
+ * The metrics of a route as they are registered in JMX, under com.aws.sample.amazonmqintegration:type=Route,name=&lt;route&gt;.
+ */
+public interface RouteMetricsMXBean {
+
+    // JMS messages received from the broker and sent to SQS or SNS
+    long getReceivedFromBroker();
+
+    long getForwardedToAws();
+
+    long getFailedToAws();
+
+    // from receiving the JMS message to SQS or SNS accepting it
+    LatencyHistogram.Snapshot getLatencyToAws();
+
+    // SQS messages received and sent to the broker
+    long getReceivedFromSqs();
+
+    long getForwardedToBroker();
+
+    long getFailedToBroker();
+
+    // from receiving the SQS message to the broker accepting it
+    LatencyHistogram.Snapshot getLatencyToBroker();
+
+    // from receiving a request to receiving the response with its correlation id, only for request-response routes
+    LatencyHistogram.Snapshot getRoundTrip();
+
+    int getOutstandingRequests();
+
+    // requests without a response within the timeout of the route, each is logged as timedOut with its correlation id
+    long getTimedOutRequests();
+
+    // a second response to a request, or one after the request timed out
+    long getLateResponses();
+
+    // responses whose correlation id belongs to no request the route knows of
+    long getUnmatchedResponses();
+
+    // requests not tracked because the route already waits for as many responses as it tracks at most
+    long getUntrackedRequests();
+
+    void resetLatencies();
+}
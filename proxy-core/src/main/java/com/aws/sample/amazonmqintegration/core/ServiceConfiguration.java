@@ -0,0 +1,77 @@
+package com.aws.sample.amazonmqintegration.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+public class ServiceConfiguration {
+
+    public static final String SERVICE_CONFIGURATION_PREFIX = "/PROD/INTEGRATION-APP";
+
+    public static final String AMAZON_MQ_CONFIGURATION = SERVICE_CONFIGURATION_PREFIX + "/BROKER";
+    public static final String BROKER_USER = AMAZON_MQ_CONFIGURATION + "/USER";
+    public static final String BROKER_PASSWORD = AMAZON_MQ_CONFIGURATION + "/PASSWORD";
+    public static final String BROKER_ENDPOINT = AMAZON_MQ_CONFIGURATION + "/ENDPOINT/OPEN-WIRE";
+    public static final String BROKER_STANDBY_ENDPOINT = AMAZON_MQ_CONFIGURATION + "/ENDPOINT/OPEN-WIRE-STANDBY";
+    public static final String BROKER_QUEUE = AMAZON_MQ_CONFIGURATION + "/QUEUE";
+    public static final String BROKER_TOPIC = AMAZON_MQ_CONFIGURATION + "/TOPIC";
+
+    public static final String SQS_CONFIGURATION = SERVICE_CONFIGURATION_PREFIX + "/SQS";
+    public static final String SQS_ENDPOINT = SQS_CONFIGURATION + "/ENDPOINT";
+
+    public static final String SNS_CONFIGURATION = SERVICE_CONFIGURATION_PREFIX + "/SNS";
+    public static final String SNS_ENDPOINT = SNS_CONFIGURATION + "/ENDPOINT";
+
+    public static final String PROXY_CONFIGURATION = SERVICE_CONFIGURATION_PREFIX + "/PROXY";
+
+    private final Map<String, String> serviceConfiguration;
+
+    ServiceConfiguration(Map<String, String> serviceConfiguration) {
+        this.serviceConfiguration = serviceConfiguration;
+    }
+
+    // reads the configuration once, nothing keeps running in the background
+    public static ServiceConfiguration lookup(String... configurationPrefixes) {
+        return new ConfigurationProvider(prefixes(configurationPrefixes)).read();
+    }
+
+    // keeps the configuration up to date, for proxies which apply changes while they are running
+    public static ConfigurationProvider provider(String... configurationPrefixes) {
+        return new ConfigurationProvider(prefixes(configurationPrefixes)).start();
+    }
+
+    private static List<String> prefixes(String... configurationPrefixes) {
+        List<String> prefixes = new ArrayList<>();
+        prefixes.add(AMAZON_MQ_CONFIGURATION);
+        prefixes.add(AMAZON_MQ_CONFIGURATION + "/ENDPOINT");
+        prefixes.addAll(Arrays.asList(configurationPrefixes));
+        return prefixes;
+    }
+
+    public String get(String key) {
+        return serviceConfiguration.get(key);
+    }
+
+    public int getInt(String key, int defaultValue) {
+        String value = serviceConfiguration.get(key);
+        return value != null ? Integer.parseInt(value) : defaultValue;
+    }
+
+    public long getLong(String key, long defaultValue) {
+        String value = serviceConfiguration.get(key);
+        return value != null ? Long.parseLong(value) : defaultValue;
+    }
+
+    public Map<String, String> filter(Predicate<String> key) {
+        Map<String, String> filtered = new HashMap<>();
+        for (Map.Entry<String, String> entry : serviceConfiguration.entrySet()) {
+            if (key.test(entry.getKey())) {
+                filtered.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return filtered;
+    }
+}
@@ -0,0 +1,28 @@
+package com.aws.sample.amazonmqintegration.core;
+
+import java.util.List;
+
+import javax.jms.JMSException;
+import javax.jms.Message;
+
+/**
+ * Forwards JMS messages to AWS. Implementations report every message of the batch to the completion exactly once
+ * and call {@link Completion#done()} when the whole batch is finished, usually from a completion callback.
+ */
+public interface Sink {
+
+    void forward(List<Message> batch, Completion completion) throws JMSException;
+
+    // called once nothing is in flight anymore
+    default void close() {
+    }
+
+    interface Completion {
+
+        void forwarded(Message msg);
+
+        void failed(Message msg, String reason);
+
+        void done();
+    }
+}
@@ -0,0 +1,135 @@
+package com.aws.sample.amazonmqintegration.core;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.jms.JMSException;
+import javax.jms.Message;
+
+import com.amazonaws.handlers.AsyncHandler;
+import com.amazonaws.services.sns.AmazonSNSAsync;
+import com.amazonaws.services.sns.model.MessageAttributeValue;
+import com.amazonaws.services.sns.model.PublishRequest;
+import com.amazonaws.services.sns.model.PublishResult;
+
+public class SnsSink implements Sink {
+
+    private static final long MAX_BACKOFF = 5000;
+    private static final int SNS_MAX_PUBLISH_ATTEMPTS = 5;
+
+    private final AmazonSNSAsync snsClient;
+    private final String topicArn;
+    private final PayloadCodec codec;
+    private final HeaderCodec headers;
+    // failed publishes are retried with a backoff without blocking any forwarder or client thread
+    private final ScheduledExecutorService retries = Executors.newSingleThreadScheduledExecutor();
+    private volatile boolean closed;
+
+    public SnsSink(AmazonSNSAsync snsClient, String topicArn, PayloadCodec codec, HeaderCodec headers) {
+        this.snsClient = snsClient;
+        this.topicArn = topicArn;
+        this.codec = codec;
+        this.headers = headers;
+    }
+
+    @Override
+    public void forward(List<Message> batch, Completion completion) throws JMSException {
+        AtomicInteger pending = new AtomicInteger(batch.size());
+        for (Message msg : batch) {
+            PublishRequest request = new PublishRequest().withTopicArn(topicArn);
+            try {
+                encode(Payload.of(msg), request);
+            } catch (JMSException | IOException e) {
+                // e.g. a message type we cannot forward, the broker moves it to its dead letter queue once it was redelivered too often
+                completion.failed(msg, e.getMessage());
+                if (pending.decrementAndGet() == 0) {
+                    completion.done();
+                }
+                continue;
+            }
+            if (msg.getJMSCorrelationID() != null) {
+                request.addMessageAttributesEntry("JMSCorrelationID", new MessageAttributeValue().withDataType("String").withStringValue(msg.getJMSCorrelationID()));
+            }
+            if (msg.getJMSReplyTo() != null) {
+                request.addMessageAttributesEntry("JMSReplyTo", new MessageAttributeValue().withDataType("String").withStringValue(msg.getJMSReplyTo().toString()));
+            }
+            request.addMessageAttributesEntry(HeaderCodec.HEADERS, new MessageAttributeValue().withDataType("Binary").withBinaryValue(headers.encode(msg)));
+            for (String name : headers.namedProperties()) {
+                Object value = msg.getObjectProperty(name);
+                if (value != null) {
+                    // e.g. for the filter policies of the subscriptions
+                    request.addMessageAttributesEntry(name, new MessageAttributeValue().withDataType(HeaderCodec.dataType(value)).withStringValue(value.toString()));
+                }
+            }
+
+            publish(request, msg, msg.getJMSCorrelationID(), 1, 100, pending, completion);
+        }
+    }
+
+    private void encode(Payload payload, PublishRequest request) throws IOException {
+        if (payload.isText()) {
+            PayloadCodec.Encoded encoded = codec.encode(payload.text());
+            request.withMessage(encoded.body);
+            if (encoded.contentEncoding != null) {
+                request.addMessageAttributesEntry(PayloadCodec.CONTENT_ENCODING, new MessageAttributeValue().withDataType("String").withStringValue(encoded.contentEncoding));
+            }
+            if (encoded.payloadReference != null) {
+                request.addMessageAttributesEntry(PayloadCodec.PAYLOAD_REFERENCE, new MessageAttributeValue().withDataType("String").withStringValue(encoded.payloadReference));
+            }
+            return;
+        }
+
+        // SNS refuses an empty message, so the message repeats the message type and the payload goes into a binary attribute
+        request.withMessage(payload.type());
+        request.addMessageAttributesEntry(Payload.MESSAGE_TYPE, new MessageAttributeValue().withDataType("String").withStringValue(payload.type()));
+        String reference = codec.offload(payload.binary());
+        if (reference != null) {
+            request.addMessageAttributesEntry(PayloadCodec.PAYLOAD_REFERENCE, new MessageAttributeValue().withDataType("String").withStringValue(reference));
+        } else if (payload.binary().hasRemaining()) {
+            request.addMessageAttributesEntry(Payload.BINARY_BODY, new MessageAttributeValue().withDataType("Binary").withBinaryValue(payload.binary()));
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        retries.shutdown();
+    }
+
+    private void publish(PublishRequest request, Message msg, String correlationId, int attempt, long backoff, AtomicInteger pending, Completion completion) {
+        snsClient.publishAsync(request, new AsyncHandler<PublishRequest, PublishResult>() {
+
+            @Override
+            public void onError(Exception e) {
+                // a retryable error is retried with a backoff, the message keeps its place in its group meanwhile. Anything else fails
+                // the message, it stays unacknowledged and the source lets the broker redeliver it, in the order of its group
+                if (!closed && attempt < SNS_MAX_PUBLISH_ATTEMPTS && AwsClients.retryable(e)) {
+                    System.out.println(String.format("failed to forward message with correlation id: %s (%s), retrying in %d ms", correlationId, e.getMessage(), backoff));
+                    try {
+                        retries.schedule(() -> publish(request, msg, correlationId, attempt + 1, Math.min(backoff * 2, MAX_BACKOFF), pending, completion), backoff, TimeUnit.MILLISECONDS);
+                        return;
+                    } catch (RejectedExecutionException rejected) {
+                        // closed meanwhile
+                    }
+                }
+                completion.failed(msg, e.getMessage());
+                if (pending.decrementAndGet() == 0) {
+                    completion.done();
+                }
+            }
+
+            @Override
+            public void onSuccess(PublishRequest request, PublishResult result) {
+                completion.forwarded(msg);
+                if (pending.decrementAndGet() == 0) {
+                    completion.done();
+                }
+            }
+        });
+    }
+}
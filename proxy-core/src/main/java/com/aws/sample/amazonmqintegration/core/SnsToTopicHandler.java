@@ -0,0 +1,134 @@
+package com.aws.sample.amazonmqintegration.core;
+
+import static com.aws.sample.amazonmqintegration.core.ServiceConfiguration.BROKER_TOPIC;
+import static com.aws.sample.amazonmqintegration.core.ServiceConfiguration.PROXY_CONFIGURATION;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import javax.jms.JMSException;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.amazonaws.services.lambda.runtime.events.SNSEvent;
+import com.amazonaws.services.lambda.runtime.events.SNSEvent.MessageAttribute;
+import com.amazonaws.services.lambda.runtime.events.SNSEvent.SNS;
+
+/**
+ * The Lambda leg of the publish-subscribe cloud native routes: publishes the records of an SNS event to the broker topic of the
+ * route, all of them in one transaction. A route's handler only names the route and the client id of its broker connection.
+ */
+public class SnsToTopicHandler implements RequestHandler<SNSEvent, Void> {
+
+    // a broker which is not reachable within this time fails the invocation instead of running it into its timeout
+    private static final long FAILOVER_TIMEOUT = 5000;
+
+    private final LazyTopicSink sink;
+    private final PayloadCodec codec;
+
+    // route names the topic, e.g. PUBLISH-SUBSCRIBE-ONE-WAY-CLOUD-NATIVE
+    protected SnsToTopicHandler(ServiceConfiguration conf, String route, String clientId) {
+        codec = PayloadCodec.fromConfiguration(conf);
+        MessageLog.configure(conf);
+
+        // the connection is reused by every invocation of this container, the TLS handshake already runs while the runtime hands us the first event
+        sink = new LazyTopicSink(new BrokerConnector(conf, FAILOVER_TIMEOUT), clientId, conf.get(BROKER_TOPIC + "/" + route), true);
+        sink.connectInBackground();
+    }
+
+    protected static ServiceConfiguration configuration() {
+        // the TLS and broker classes are loaded while we wait for the configuration
+        CompletableFuture<Void> warmUp = CompletableFuture.runAsync(BrokerConnector::warmUp);
+
+        // we are using AWS Simple Systems Management Parameter Store to store our configuration in a central and secure place
+        final ServiceConfiguration conf = ServiceConfiguration.lookup(BROKER_TOPIC, PROXY_CONFIGURATION);
+        warmUp.join();
+        return conf;
+    }
+
+    @Override
+    public Void handleRequest(SNSEvent request, Context context) {
+        try {
+            forward(request, context.getLogger());
+        } finally {
+            // Lambda may freeze the container right after the invocation, before the writer of the message log got to run
+            MessageLog.flush();
+        }
+        return null;
+    }
+
+    private void forward(SNSEvent request, LambdaLogger logger) {
+        // not the whole event, its string would be built and shipped to CloudWatch on every invocation
+        logger.log("received records: " + request.getRecords().size() + "\n");
+
+        // compressed or offloaded payloads and the JMS headers are restored before anything is sent
+        List<Payload> bodies = new ArrayList<>(request.getRecords().size());
+        List<HeaderCodec.Headers> headers = new ArrayList<>(request.getRecords().size());
+        try {
+            for (SNSEvent.SNSRecord record: request.getRecords()) {
+                SNS sns = record.getSNS();
+                // SNS hands binary attributes to Lambda base64 encoded
+                String binaryBody = attribute(sns, Payload.BINARY_BODY);
+                bodies.add(codec.decode(sns.getMessage(), attribute(sns, PayloadCodec.CONTENT_ENCODING), attribute(sns, PayloadCodec.PAYLOAD_REFERENCE),
+                    attribute(sns, Payload.MESSAGE_TYPE), binaryBody != null ? ByteBuffer.wrap(Base64.getDecoder().decode(binaryBody)) : null));
+                String headerAttribute = attribute(sns, HeaderCodec.HEADERS);
+                headers.add(headerAttribute != null ? HeaderCodec.decode(ByteBuffer.wrap(Base64.getDecoder().decode(headerAttribute))) : null);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        try {
+            publish(request, bodies, headers);
+        } catch (JMSException e) {
+            // the connection may have gone stale while the container was frozen, so we try once more on a new one
+            logger.log(String.format("failed to publish, reconnecting (%s)\n", e.getMessage()));
+            sink.reset();
+            try {
+                publish(request, bodies, headers);
+            } catch (JMSException retryFailure) {
+                // nothing of this event has been published, the invocation fails and Lambda retries the whole event
+                sink.reset();
+                throw new RuntimeException(retryFailure);
+            }
+        }
+
+        // through the ring buffer of the message log, so /PROXY/LOG-LEVEL and /PROXY/LOG-SAMPLE-RATE apply and the invocation does not wait for CloudWatch
+        for (SNSEvent.SNSRecord record: request.getRecords()) {
+            MessageLog.forwarded("correlationId", attribute(record.getSNS(), "JMSCorrelationID"));
+        }
+    }
+
+    // all records are published in one transaction, so the invocation waits for the broker only once, on commit
+    private void publish(SNSEvent request, List<Payload> bodies, List<HeaderCodec.Headers> headers) throws JMSException {
+        JmsSink jmsSink = sink.get();
+        try {
+            for (int i = 0; i < bodies.size(); i++) {
+                SNS sns = request.getRecords().get(i).getSNS();
+                jmsSink.send(sns.getMessageId(), bodies.get(i), attribute(sns, "JMSCorrelationID"), attribute(sns, "JMSReplyTo"), headers.get(i));
+            }
+            jmsSink.commit();
+        } catch (JMSException e) {
+            rollback(jmsSink);
+            throw e;
+        }
+    }
+
+    private static void rollback(JmsSink jmsSink) {
+        try {
+            jmsSink.rollback();
+        } catch (JMSException e) {
+            System.out.println(String.format("failed to roll back (%s)", e.getMessage()));
+        }
+    }
+
+    private static String attribute(SNS sns, String name) {
+        MessageAttribute attribute = sns.getMessageAttributes().get(name);
+        return attribute != null ? attribute.getValue() : null;
+    }
+}
@@ -0,0 +1,188 @@
+package com.aws.sample.amazonmqintegration.core;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.jms.JMSException;
+import javax.jms.Message;
+
+import com.amazonaws.handlers.AsyncHandler;
+import com.amazonaws.services.sqs.AmazonSQSAsync;
+import com.amazonaws.services.sqs.model.BatchResultErrorEntry;
+import com.amazonaws.services.sqs.model.MessageAttributeValue;
+import com.amazonaws.services.sqs.model.SendMessageBatchRequest;
+import com.amazonaws.services.sqs.model.SendMessageBatchRequestEntry;
+import com.amazonaws.services.sqs.model.SendMessageBatchResult;
+import com.amazonaws.services.sqs.model.SendMessageBatchResultEntry;
+
+public class SqsSink implements Sink {
+
+    // SendMessageBatch accepts at most 10 entries per call
+    public static final int SQS_MAX_BATCH_SIZE = 10;
+    // all entries of a SendMessageBatch together must not exceed 256 KB either
+    private static final int SQS_MAX_BATCH_BYTES = 256 * 1024;
+    private static final int SQS_MAX_SEND_ATTEMPTS = 3;
+
+    private final AmazonSQSAsync sqsClient;
+    private final String queueUrl;
+    private final PayloadCodec codec;
+    private final HeaderCodec headers;
+
+    public SqsSink(AmazonSQSAsync sqsClient, String queueUrl, PayloadCodec codec, HeaderCodec headers) {
+        this.sqsClient = sqsClient;
+        this.queueUrl = queueUrl;
+        this.codec = codec;
+        this.headers = headers;
+    }
+
+    @Override
+    public void forward(List<Message> batch, Completion completion) throws JMSException {
+        SendMessageBatchRequestEntry[] entries = new SendMessageBatchRequestEntry[batch.size()];
+        List<List<SendMessageBatchRequestEntry>> requests = new ArrayList<>();
+        List<SendMessageBatchRequestEntry> request = new ArrayList<>(batch.size());
+        int requestBytes = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            try {
+                entries[i] = toEntry(i, batch.get(i));
+            } catch (JMSException | IOException e) {
+                // e.g. a message type we cannot forward, the broker moves it to its dead letter queue once it was redelivered too often
+                completion.failed(batch.get(i), e.getMessage());
+                continue;
+            }
+
+            // large messages are split over several requests
+            int entryBytes = size(entries[i]);
+            if (!request.isEmpty() && requestBytes + entryBytes > SQS_MAX_BATCH_BYTES) {
+                requests.add(request);
+                request = new ArrayList<>(batch.size() - i);
+                requestBytes = 0;
+            }
+            request.add(entries[i]);
+            requestBytes += entryBytes;
+        }
+        if (!request.isEmpty()) {
+            requests.add(request);
+        }
+
+        if (requests.isEmpty()) {
+            completion.done();
+            return;
+        }
+
+        // the batch is done once every request is done
+        AtomicInteger pending = new AtomicInteger(requests.size());
+        Completion requestCompletion = new Completion() {
+
+            @Override
+            public void forwarded(Message msg) {
+                completion.forwarded(msg);
+            }
+
+            @Override
+            public void failed(Message msg, String reason) {
+                completion.failed(msg, reason);
+            }
+
+            @Override
+            public void done() {
+                if (pending.decrementAndGet() == 0) {
+                    completion.done();
+                }
+            }
+        };
+        for (List<SendMessageBatchRequestEntry> requestEntries : requests) {
+            sendBatch(batch, entries, requestEntries, 1, requestCompletion);
+        }
+    }
+
+    private SendMessageBatchRequestEntry toEntry(int index, Message msg) throws JMSException, IOException {
+        // the entry id is the index of the JMS message in the batch
+        SendMessageBatchRequestEntry entry = new SendMessageBatchRequestEntry().withId(Integer.toString(index));
+        Payload payload = Payload.of(msg);
+        if (payload.isText()) {
+            PayloadCodec.Encoded encoded = codec.encode(payload.text());
+            entry.withMessageBody(encoded.body);
+            if (encoded.contentEncoding != null) {
+                entry.addMessageAttributesEntry(PayloadCodec.CONTENT_ENCODING, new MessageAttributeValue().withDataType("String").withStringValue(encoded.contentEncoding));
+            }
+            if (encoded.payloadReference != null) {
+                entry.addMessageAttributesEntry(PayloadCodec.PAYLOAD_REFERENCE, new MessageAttributeValue().withDataType("String").withStringValue(encoded.payloadReference));
+            }
+        } else {
+            // SQS refuses an empty body, so the body repeats the message type and the payload goes into a binary attribute
+            entry.withMessageBody(payload.type());
+            entry.addMessageAttributesEntry(Payload.MESSAGE_TYPE, new MessageAttributeValue().withDataType("String").withStringValue(payload.type()));
+            String reference = codec.offload(payload.binary());
+            if (reference != null) {
+                entry.addMessageAttributesEntry(PayloadCodec.PAYLOAD_REFERENCE, new MessageAttributeValue().withDataType("String").withStringValue(reference));
+            } else if (payload.binary().hasRemaining()) {
+                entry.addMessageAttributesEntry(Payload.BINARY_BODY, new MessageAttributeValue().withDataType("Binary").withBinaryValue(payload.binary()));
+            }
+        }
+        if (msg.getJMSCorrelationID() != null) {
+            entry.addMessageAttributesEntry("JMSCorrelationID", new MessageAttributeValue().withDataType("String").withStringValue(msg.getJMSCorrelationID()));
+        }
+        if (msg.getJMSReplyTo() != null) {
+            entry.addMessageAttributesEntry("JMSReplyTo", new MessageAttributeValue().withDataType("String").withStringValue(msg.getJMSReplyTo().toString()));
+        }
+        entry.addMessageAttributesEntry(HeaderCodec.HEADERS, new MessageAttributeValue().withDataType("Binary").withBinaryValue(headers.encode(msg)));
+        for (String name : headers.namedProperties()) {
+            Object value = msg.getObjectProperty(name);
+            if (value != null) {
+                entry.addMessageAttributesEntry(name, new MessageAttributeValue().withDataType(HeaderCodec.dataType(value)).withStringValue(value.toString()));
+            }
+        }
+        return entry;
+    }
+
+    private static int size(SendMessageBatchRequestEntry entry) {
+        int size = PayloadCodec.utf8Length(entry.getMessageBody());
+        for (Map.Entry<String, MessageAttributeValue> attribute : entry.getMessageAttributes().entrySet()) {
+            MessageAttributeValue value = attribute.getValue();
+            size += attribute.getKey().length() + value.getDataType().length()
+                + (value.getBinaryValue() != null ? value.getBinaryValue().remaining() : PayloadCodec.utf8Length(value.getStringValue()));
+        }
+        return size;
+    }
+
+    private void sendBatch(List<Message> batch, SendMessageBatchRequestEntry[] all, List<SendMessageBatchRequestEntry> entries, int attempt, Completion completion) {
+        sqsClient.sendMessageBatchAsync(new SendMessageBatchRequest().withQueueUrl(queueUrl).withEntries(entries), new AsyncHandler<SendMessageBatchRequest, SendMessageBatchResult>() {
+
+            @Override
+            public void onError(Exception e) {
+                for (SendMessageBatchRequestEntry entry : entries) {
+                    completion.failed(batch.get(Integer.parseInt(entry.getId())), e.getMessage());
+                }
+                completion.done();
+            }
+
+            @Override
+            public void onSuccess(SendMessageBatchRequest request, SendMessageBatchResult result) {
+                for (SendMessageBatchResultEntry entry : result.getSuccessful()) {
+                    completion.forwarded(batch.get(Integer.parseInt(entry.getId())));
+                }
+
+                List<SendMessageBatchRequestEntry> retries = new ArrayList<>(result.getFailed().size());
+                for (BatchResultErrorEntry entry : result.getFailed()) {
+                    int index = Integer.parseInt(entry.getId());
+                    // sender faults will fail again, so we only retry entries SQS could not handle for internal reasons
+                    if (entry.isSenderFault() || attempt >= SQS_MAX_SEND_ATTEMPTS) {
+                        completion.failed(batch.get(index), entry.getMessage());
+                    } else {
+                        // the same entry again, the payload is not encoded or offloaded a second time
+                        retries.add(all[index]);
+                    }
+                }
+
+                if (retries.isEmpty()) {
+                    completion.done();
+                } else {
+                    sendBatch(batch, all, retries, attempt + 1, completion);
+                }
+            }
+        });
+    }
+}
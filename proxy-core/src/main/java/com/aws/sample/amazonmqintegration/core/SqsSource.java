@@ -0,0 +1,217 @@
+package com.aws.sample.amazonmqintegration.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import com.amazonaws.handlers.AsyncHandler;
+import com.amazonaws.services.sqs.AmazonSQSAsync;
+import com.amazonaws.services.sqs.model.BatchResultErrorEntry;
+import com.amazonaws.services.sqs.model.DeleteMessageBatchRequest;
+import com.amazonaws.services.sqs.model.DeleteMessageBatchRequestEntry;
+import com.amazonaws.services.sqs.model.DeleteMessageBatchResult;
+import com.amazonaws.services.sqs.model.Message;
+import com.amazonaws.services.sqs.model.ReceiveMessageRequest;
+import com.amazonaws.services.sqs.model.ReceiveMessageResult;
+
+public class SqsSource implements Stoppable {
+
+    // ReceiveMessage and DeleteMessageBatch accept at most 10 messages per call
+    private static final int SQS_MAX_BATCH_SIZE = 10;
+    private static final int SQS_MAX_DELETE_ATTEMPTS = 3;
+    private static final long IDLE_TIMEOUT = 1000;
+
+    private final AmazonSQSAsync sqsClient;
+    private final String queueUrl;
+    private final int pollers;
+    private final int handOffCapacity;
+    private final int inFlight;
+    private final Semaphore deletesInFlight;
+    private final List<Thread> pollerThreads = new ArrayList<>();
+    private final List<Thread> workerThreads = new ArrayList<>();
+    private volatile boolean polling = true;
+    private volatile boolean working = true;
+    private List<JmsSink> sinks;
+
+    public SqsSource(AmazonSQSAsync sqsClient, String queueUrl, int pollers, int handOffCapacity, int inFlight) {
+        this.sqsClient = sqsClient;
+        this.queueUrl = queueUrl;
+        this.pollers = pollers;
+        this.handOffCapacity = handOffCapacity;
+        this.inFlight = inFlight;
+        // up to inFlight batches are waiting for the broker or the delete, the SQS messages are deleted from the completion callbacks
+        this.deletesInFlight = new Semaphore(inFlight);
+    }
+
+    // the messages of one ReceiveMessage call and the System.nanoTime() they were received at
+    private static class Received {
+
+        private final List<Message> messages;
+        private final long at;
+
+        Received(List<Message> messages, long at) {
+            this.messages = messages;
+            this.at = at;
+        }
+    }
+
+    // every sink gets its own broker worker thread, JMS sessions must not be shared between threads
+    public SqsSource start(String name, List<JmsSink> sinks) {
+        this.sinks = sinks;
+        // bounded, so the pollers block and stop receiving as soon as the broker workers fall behind
+        final BlockingQueue<Received> handOff = new ArrayBlockingQueue<>(handOffCapacity);
+
+        for (int i = 0; i < pollers; i++) {
+            Thread thread = new Thread(() -> poll(handOff), name + "-poller-" + i);
+            pollerThreads.add(thread);
+            thread.start();
+        }
+
+        for (int i = 0; i < sinks.size(); i++) {
+            final JmsSink sink = sinks.get(i);
+            Thread thread = new Thread(() -> {
+                try {
+                    while (working || !handOff.isEmpty()) {
+                        Received received = handOff.poll(IDLE_TIMEOUT, TimeUnit.MILLISECONDS);
+                        if (received != null) {
+                            // the permit is held until the broker confirmed the messages and SQS deleted them
+                            deletesInFlight.acquire();
+                            boolean handedOver = false;
+                            try {
+                                sink.forward(received.messages, received.at, this::deleteBatch);
+                                handedOver = true;
+                            } catch (RuntimeException e) {
+                                // the messages are not deleted, SQS makes them visible again after their visibility timeout
+                                MessageLog.failed("queueUrl", queueUrl, e.getMessage());
+                                Thread.sleep(IDLE_TIMEOUT);
+                            } finally {
+                                if (!handedOver) {
+                                    deletesInFlight.release();
+                                }
+                            }
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }, name + "-worker-" + i);
+            workerThreads.add(thread);
+            thread.start();
+        }
+        return this;
+    }
+
+    // waits for the running long polls (up to 20 seconds), forwards what they received and waits for the deletes
+    @Override
+    public void stop() {
+        polling = false;
+        try {
+            join(pollerThreads);
+            working = false;
+            join(workerThreads);
+            deletesInFlight.acquire(inFlight);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (JmsSink sink : sinks) {
+            sink.close();
+        }
+    }
+
+    private static void join(List<Thread> threads) throws InterruptedException {
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+
+    private void poll(BlockingQueue<Received> handOff) {
+        try {
+            while (polling) {
+                ReceiveMessageResult receiveMessageResult;
+                try {
+                    receiveMessageResult = sqsClient.receiveMessage(new ReceiveMessageRequest()
+                        .withQueueUrl(queueUrl)
+                        .withAttributeNames("All")
+                        .withMessageAttributeNames("All")
+                        .withMaxNumberOfMessages(SQS_MAX_BATCH_SIZE)
+                        .withWaitTimeSeconds(20));
+                } catch (RuntimeException e) {
+                    // e.g. throttling or a network error, the poller keeps polling once it backed off
+                    MessageLog.failed("queueUrl", queueUrl, e.getMessage());
+                    Thread.sleep(IDLE_TIMEOUT);
+                    continue;
+                }
+                if (!receiveMessageResult.getMessages().isEmpty()) {
+                    handOff.put(new Received(receiveMessageResult.getMessages(), System.nanoTime()));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // called on the transport thread of the broker connection with asynchronous sends, so it must not block
+    private void deleteBatch(List<Message> messages) {
+        if (messages.isEmpty()) {
+            deletesInFlight.release();
+            return;
+        }
+
+        // the entry id is the index of the SQS message in the list
+        List<DeleteMessageBatchRequestEntry> entries = new ArrayList<>(messages.size());
+        for (int i = 0; i < messages.size(); i++) {
+            entries.add(new DeleteMessageBatchRequestEntry()
+                .withId(Integer.toString(i))
+                .withReceiptHandle(messages.get(i).getReceiptHandle()));
+        }
+
+        deleteEntries(messages, entries, 1);
+    }
+
+    private void deleteEntries(List<Message> messages, List<DeleteMessageBatchRequestEntry> entries, int attempt) {
+        try {
+            deleteEntriesAsync(messages, entries, attempt);
+        } catch (RuntimeException e) {
+            // e.g. the client is shut down, the messages become visible again after their visibility timeout
+            System.out.println(String.format("failed to delete %d messages (%s)", entries.size(), e.getMessage()));
+            deletesInFlight.release();
+        }
+    }
+
+    private void deleteEntriesAsync(List<Message> messages, List<DeleteMessageBatchRequestEntry> entries, int attempt) {
+        sqsClient.deleteMessageBatchAsync(new DeleteMessageBatchRequest().withQueueUrl(queueUrl).withEntries(entries), new AsyncHandler<DeleteMessageBatchRequest, DeleteMessageBatchResult>() {
+
+            @Override
+            public void onError(Exception e) {
+                // the messages become visible again after their visibility timeout and will be forwarded a second time
+                System.out.println(String.format("failed to delete %d messages (%s)", entries.size(), e.getMessage()));
+                deletesInFlight.release();
+            }
+
+            @Override
+            public void onSuccess(DeleteMessageBatchRequest request, DeleteMessageBatchResult result) {
+                List<DeleteMessageBatchRequestEntry> retries = new ArrayList<>(result.getFailed().size());
+                for (BatchResultErrorEntry entry : result.getFailed()) {
+                    int index = Integer.parseInt(entry.getId());
+                    if (entry.isSenderFault() || attempt >= SQS_MAX_DELETE_ATTEMPTS) {
+                        // the message becomes visible again after its visibility timeout and will be forwarded a second time
+                        System.out.println(String.format("failed to delete message with message id: %s (%s)", messages.get(index).getMessageId(), entry.getMessage()));
+                    } else {
+                        retries.add(new DeleteMessageBatchRequestEntry()
+                            .withId(entry.getId())
+                            .withReceiptHandle(messages.get(index).getReceiptHandle()));
+                    }
+                }
+
+                if (retries.isEmpty()) {
+                    deletesInFlight.release();
+                } else {
+                    deleteEntries(messages, retries, attempt + 1);
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,18 @@
+package com.aws.sample.amazonmqintegration.core;
+
+/**
+ * Something which forwards messages until it is stopped. Stopping takes no new messages, waits until the messages in flight
+ * are completed and then releases the sessions, so nothing is lost and the broker redelivers whatever was not acknowledged.
+ */
+public interface Stoppable {
+
+    void stop();
+
+    static Stoppable all(Stoppable... parts) {
+        return () -> {
+            for (Stoppable part : parts) {
+                part.stop();
+            }
+        };
+    }
+}
@@ -0,0 +1,50 @@
+package com.aws.sample.amazonmqintegration.core.route;
+
+import static com.aws.sample.amazonmqintegration.core.ServiceConfiguration.BROKER_QUEUE;
+import static com.aws.sample.amazonmqintegration.core.ServiceConfiguration.SQS_ENDPOINT;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.jms.JMSException;
+
+import com.aws.sample.amazonmqintegration.core.JmsSink;
+import com.aws.sample.amazonmqintegration.core.ProxyContext;
+import com.aws.sample.amazonmqintegration.core.Route;
+import com.aws.sample.amazonmqintegration.core.RouteMetrics;
+import com.aws.sample.amazonmqintegration.core.ServiceConfiguration;
+import com.aws.sample.amazonmqintegration.core.SqsSource;
+import com.aws.sample.amazonmqintegration.core.Stoppable;
+
+public class PointToPointOneWayCloudNativeRoute implements Route {
+
+    public static final String NAME = "POINT-TO-POINT-ONE-WAY-CLOUD-NATIVE";
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public Stoppable start(ServiceConfiguration conf, ProxyContext context) throws JMSException {
+        RouteMetrics metrics = context.metrics(NAME);
+        int workers = conf.getInt(configuration() + Routes.BROKER_WORKERS, 4);
+        int producerWindow = conf.getInt(configuration() + Routes.PRODUCER_WINDOW, 0);
+
+        List<JmsSink> sinks = new ArrayList<>(workers);
+        try {
+            for (int i = 0; i < workers; i++) {
+                sinks.add(JmsSink.toQueue(context.producerConnection(producerWindow > 0), conf.get(BROKER_QUEUE + "/" + NAME)).withCodec(context.payloadCodec()).withProducerWindow(producerWindow).withMetrics(metrics.toBroker()));
+            }
+
+            return new SqsSource(context.sqsClient(), conf.get(SQS_ENDPOINT + "/" + NAME),
+                    conf.getInt(configuration() + Routes.SQS_POLLERS, 2),
+                    conf.getInt(configuration() + Routes.HAND_OFF_CAPACITY, workers),
+                    conf.getInt(configuration() + Routes.AWS_IN_FLIGHT, 16))
+                .start("p2p-ow-cn-sqs", sinks);
+        } catch (JMSException | RuntimeException e) {
+            Routes.close(sinks);
+            throw e;
+        }
+    }
+}
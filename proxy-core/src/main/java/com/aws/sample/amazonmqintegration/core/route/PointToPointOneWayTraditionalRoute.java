@@ -0,0 +1,38 @@
+package com.aws.sample.amazonmqintegration.core.route;
+
+import static com.aws.sample.amazonmqintegration.core.ServiceConfiguration.BROKER_QUEUE;
+import static com.aws.sample.amazonmqintegration.core.ServiceConfiguration.SQS_ENDPOINT;
+
+import javax.jms.JMSException;
+
+import com.aws.sample.amazonmqintegration.core.JmsSource;
+import com.aws.sample.amazonmqintegration.core.ProxyContext;
+import com.aws.sample.amazonmqintegration.core.Route;
+import com.aws.sample.amazonmqintegration.core.RouteMetrics;
+import com.aws.sample.amazonmqintegration.core.ServiceConfiguration;
+import com.aws.sample.amazonmqintegration.core.SqsSink;
+import com.aws.sample.amazonmqintegration.core.Stoppable;
+
+public class PointToPointOneWayTraditionalRoute implements Route {
+
+    public static final String NAME = "POINT-TO-POINT-ONE-WAY-TRADITIONAL";
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public Stoppable start(ServiceConfiguration conf, ProxyContext context) throws JMSException {
+        RouteMetrics metrics = context.metrics(NAME);
+        return new JmsSource(context.requestConnection(), conf.get(BROKER_QUEUE + "/" + NAME),
+                conf.getInt(configuration() + Routes.CONSUMERS, Runtime.getRuntime().availableProcessors()),
+                Math.min(conf.getInt(configuration() + Routes.SQS_BATCH_SIZE, 10), SqsSink.SQS_MAX_BATCH_SIZE),
+                conf.getLong(configuration() + Routes.SQS_BATCH_LINGER, 100),
+                conf.getInt(configuration() + Routes.AWS_IN_FLIGHT, 16))
+            .withPrefetch(conf.getInt(configuration() + Routes.PREFETCH, 0))
+            .withAcknowledgeBatch(conf.getInt(configuration() + Routes.ACK_BATCH_SIZE, 1), conf.getLong(configuration() + Routes.ACK_BATCH_LINGER, 100))
+            .withMetrics(metrics.toAws())
+            .start("p2p-ow-trad-sqs-forwarder", new SqsSink(context.sqsClient(), conf.get(SQS_ENDPOINT + "/" + NAME), context.payloadCodec(), context.headerCodec()));
+    }
+}
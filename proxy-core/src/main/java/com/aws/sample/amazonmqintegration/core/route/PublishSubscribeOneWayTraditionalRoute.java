@@ -0,0 +1,35 @@
+package com.aws.sample.amazonmqintegration.core.route;
+
+import static com.aws.sample.amazonmqintegration.core.ServiceConfiguration.BROKER_TOPIC;
+import static com.aws.sample.amazonmqintegration.core.ServiceConfiguration.SNS_ENDPOINT;
+
+import javax.jms.JMSException;
+
+import com.aws.sample.amazonmqintegration.core.JmsTopicSource;
+import com.aws.sample.amazonmqintegration.core.ProxyContext;
+import com.aws.sample.amazonmqintegration.core.Route;
+import com.aws.sample.amazonmqintegration.core.RouteMetrics;
+import com.aws.sample.amazonmqintegration.core.ServiceConfiguration;
+import com.aws.sample.amazonmqintegration.core.SnsSink;
+import com.aws.sample.amazonmqintegration.core.Stoppable;
+
+public class PublishSubscribeOneWayTraditionalRoute implements Route {
+
+    public static final String NAME = "PUBLISH-SUBSCRIBE-ONE-WAY-TRADITIONAL";
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public Stoppable start(ServiceConfiguration conf, ProxyContext context) throws JMSException {
+        RouteMetrics metrics = context.metrics(NAME);
+        return new JmsTopicSource(context.subscriberConnection("PublishSubscribeOneWayTraditionalProxy"), conf.get(BROKER_TOPIC + "/" + NAME), "PublishSubscribeOneWayTraditionalDurableSubscriber",
+                conf.getInt(configuration() + Routes.CONSUMERS, Runtime.getRuntime().availableProcessors()),
+                conf.getInt(configuration() + Routes.AWS_IN_FLIGHT, 16))
+            .withPrefetch(conf.getInt(configuration() + Routes.PREFETCH, 0))
+            .withMetrics(metrics.toAws())
+            .start("ps-ow-trad-sns-forwarder", new SnsSink(context.snsClient(), conf.get(SNS_ENDPOINT + "/" + NAME), context.payloadCodec(), context.headerCodec()));
+    }
+}
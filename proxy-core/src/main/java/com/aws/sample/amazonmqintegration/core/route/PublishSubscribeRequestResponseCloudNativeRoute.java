@@ -0,0 +1,39 @@
+package com.aws.sample.amazonmqintegration.core.route;
+
+import static com.aws.sample.amazonmqintegration.core.ServiceConfiguration.BROKER_QUEUE;
+import static com.aws.sample.amazonmqintegration.core.ServiceConfiguration.SQS_ENDPOINT;
+
+import javax.jms.JMSException;
+
+import com.aws.sample.amazonmqintegration.core.JmsSource;
+import com.aws.sample.amazonmqintegration.core.ProxyContext;
+import com.aws.sample.amazonmqintegration.core.Route;
+import com.aws.sample.amazonmqintegration.core.RouteMetrics;
+import com.aws.sample.amazonmqintegration.core.ServiceConfiguration;
+import com.aws.sample.amazonmqintegration.core.SqsSink;
+import com.aws.sample.amazonmqintegration.core.Stoppable;
+
+// the requests are forwarded by the Lambda function, this route only takes care of the responses
+public class PublishSubscribeRequestResponseCloudNativeRoute implements Route {
+
+    public static final String NAME = "PUBLISH-SUBSCRIBE-REQUEST-RESPONSE-CLOUD-NATIVE";
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public Stoppable start(ServiceConfiguration conf, ProxyContext context) throws JMSException {
+        RouteMetrics metrics = context.metrics(NAME);
+        return new JmsSource(context.responseConnection(), conf.get(BROKER_QUEUE + "/" + NAME + Routes.RESPONSE),
+                1,
+                Math.min(conf.getInt(configuration() + Routes.SQS_BATCH_SIZE, 10), SqsSink.SQS_MAX_BATCH_SIZE),
+                conf.getLong(configuration() + Routes.SQS_BATCH_LINGER, 100),
+                conf.getInt(configuration() + Routes.AWS_IN_FLIGHT, 16))
+            .withPrefetch(conf.getInt(configuration() + Routes.PREFETCH, 0))
+            .withAcknowledgeBatch(conf.getInt(configuration() + Routes.ACK_BATCH_SIZE, 1), conf.getLong(configuration() + Routes.ACK_BATCH_LINGER, 100))
+            .withMetrics(metrics.toAws())
+            .start("ps-rr-cn-response-forwarder", new SqsSink(context.sqsClient(), conf.get(SQS_ENDPOINT + "/" + NAME + Routes.RESPONSE), context.payloadCodec(), context.headerCodec()));
+    }
+}
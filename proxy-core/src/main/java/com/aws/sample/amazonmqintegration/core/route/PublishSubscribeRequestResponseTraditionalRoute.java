@@ -0,0 +1,72 @@
+package com.aws.sample.amazonmqintegration.core.route;
+
+import static com.aws.sample.amazonmqintegration.core.ServiceConfiguration.BROKER_TOPIC;
+import static com.aws.sample.amazonmqintegration.core.ServiceConfiguration.SNS_ENDPOINT;
+import static com.aws.sample.amazonmqintegration.core.ServiceConfiguration.SQS_ENDPOINT;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.jms.JMSException;
+
+import com.aws.sample.amazonmqintegration.core.JmsSink;
+import com.aws.sample.amazonmqintegration.core.JmsTopicSource;
+import com.aws.sample.amazonmqintegration.core.ProxyContext;
+import com.aws.sample.amazonmqintegration.core.Route;
+import com.aws.sample.amazonmqintegration.core.RouteMetrics;
+import com.aws.sample.amazonmqintegration.core.ServiceConfiguration;
+import com.aws.sample.amazonmqintegration.core.SnsSink;
+import com.aws.sample.amazonmqintegration.core.SqsSource;
+import com.aws.sample.amazonmqintegration.core.Stoppable;
+
+public class PublishSubscribeRequestResponseTraditionalRoute implements Route {
+
+    public static final String NAME = "PUBLISH-SUBSCRIBE-REQUEST-RESPONSE-TRADITIONAL";
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public Stoppable start(ServiceConfiguration conf, ProxyContext context) throws JMSException {
+        RouteMetrics metrics = context.metrics(NAME);
+        // the requests come from the broker, the round trip ends when the response with their correlation id arrives
+        metrics.withRequests(metrics.toAws(),
+                conf.getLong(configuration() + Routes.ROUND_TRIP_TIMEOUT, 300000),
+                conf.getInt(configuration() + Routes.MAX_OUTSTANDING_REQUESTS, 10000));
+
+        int workers = conf.getInt(configuration() + Routes.BROKER_WORKERS, 4);
+        int producerWindow = conf.getInt(configuration() + Routes.PRODUCER_WINDOW, 0);
+        int awsInFlight = conf.getInt(configuration() + Routes.AWS_IN_FLIGHT, 16);
+
+        // the subscriber connection keeps its historical client id, the durable subscription is registered under it
+        Stoppable requests = new JmsTopicSource(context.subscriberConnection("PublishSubscribeRequestResponseTraditionalResponseProxy"), conf.get(BROKER_TOPIC + "/" + NAME), "PublishSubscribeRequestResponseTraditionalDurableSubscriber",
+                conf.getInt(configuration() + Routes.CONSUMERS, Runtime.getRuntime().availableProcessors()),
+                awsInFlight)
+            .withPrefetch(conf.getInt(configuration() + Routes.PREFETCH, 0))
+            .withMetrics(metrics.toAws())
+            .start("ps-rr-trad-request-forwarder", new SnsSink(context.snsClient(), conf.get(SNS_ENDPOINT + "/" + NAME), context.payloadCodec(), context.headerCodec()));
+
+        // responses go back to the JMSReplyTo destination of their request
+        List<JmsSink> sinks = new ArrayList<>(workers);
+        try {
+            for (int i = 0; i < workers; i++) {
+                sinks.add(JmsSink.toReplyTo(context.producerConnection(producerWindow > 0)).withCodec(context.payloadCodec()).withProducerWindow(producerWindow).withMetrics(metrics.toBroker()));
+            }
+
+            Stoppable responses = new SqsSource(context.sqsClient(), conf.get(SQS_ENDPOINT + "/" + NAME + Routes.RESPONSE),
+                    conf.getInt(configuration() + Routes.SQS_POLLERS, 2),
+                    conf.getInt(configuration() + Routes.HAND_OFF_CAPACITY, workers),
+                    awsInFlight)
+                .start("ps-rr-trad-sqs", sinks);
+
+            return Stoppable.all(requests, responses);
+        } catch (JMSException | RuntimeException e) {
+            // nothing may keep running of a route which failed to start, the next attempt starts it from scratch
+            Routes.close(sinks);
+            requests.stop();
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.aws.sample.amazonmqintegration.core.route;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import javax.jms.JMSException;
+
+import com.aws.sample.amazonmqintegration.core.MessageLog;
+import com.aws.sample.amazonmqintegration.core.ProxyContext;
+import com.aws.sample.amazonmqintegration.core.Route;
+import com.aws.sample.amazonmqintegration.core.ServiceConfiguration;
+import com.aws.sample.amazonmqintegration.core.Stoppable;
+
+/**
+ * Keeps the running routes in line with the configuration. A route is only stopped and started again if one of its own
+ * parameters changed, every other route keeps running. A change of the codec settings restarts every route.
+ */
+public class RouteSupervisor {
+
+    private final ProxyContext context;
+    private final Function<ServiceConfiguration, List<Route>> routeTable;
+    private final Map<String, Stoppable> running = new HashMap<>();
+    private final Map<String, Map<String, String>> parameters = new HashMap<>();
+
+    public RouteSupervisor(ProxyContext context, Function<ServiceConfiguration, List<Route>> routeTable) {
+        this.context = context;
+        this.routeTable = routeTable;
+    }
+
+    public synchronized void apply(ServiceConfiguration conf) {
+        // the log settings change without restarting a route
+        MessageLog.configure(conf);
+        if (context.applyCodecs(conf)) {
+            // the running routes encode with the old codecs
+            parameters.clear();
+        }
+
+        Map<String, Route> routes = new LinkedHashMap<>();
+        for (Route route : routeTable.apply(conf)) {
+            routes.put(route.name(), route);
+        }
+
+        for (String name : new ArrayList<>(running.keySet())) {
+            if (!routes.containsKey(name)) {
+                stop(name);
+            }
+        }
+
+        for (Route route : routes.values()) {
+            Map<String, String> routeParameters = Routes.parameters(conf, route);
+            if (routeParameters.equals(parameters.get(route.name()))) {
+                continue;
+            }
+
+            // the old instance must be gone first, a durable subscription can only be consumed once
+            if (running.containsKey(route.name())) {
+                stop(route.name());
+            }
+            try {
+                running.put(route.name(), route.start(conf, context));
+                parameters.put(route.name(), routeParameters);
+                System.out.println("started route " + route.name());
+            } catch (JMSException | RuntimeException e) {
+                // the route stopped what it had started already, it is retried with the next configuration change
+                System.out.println(String.format("failed to start route %s (%s)", route.name(), e.getMessage()));
+            }
+        }
+    }
+
+    private void stop(String name) {
+        running.remove(name).stop();
+        parameters.remove(name);
+        System.out.println("stopped route " + name);
+    }
+}
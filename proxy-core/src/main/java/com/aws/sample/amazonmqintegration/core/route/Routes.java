@@ -0,0 +1,124 @@
+package com.aws.sample.amazonmqintegration.core.route;
+
+import static com.aws.sample.amazonmqintegration.core.ServiceConfiguration.BROKER_QUEUE;
+import static com.aws.sample.amazonmqintegration.core.ServiceConfiguration.BROKER_TOPIC;
+import static com.aws.sample.amazonmqintegration.core.ServiceConfiguration.PROXY_CONFIGURATION;
+import static com.aws.sample.amazonmqintegration.core.ServiceConfiguration.SNS_ENDPOINT;
+import static com.aws.sample.amazonmqintegration.core.ServiceConfiguration.SQS_ENDPOINT;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+
+import com.aws.sample.amazonmqintegration.core.ConfigurationProvider;
+import com.aws.sample.amazonmqintegration.core.JmsSink;
+import com.aws.sample.amazonmqintegration.core.ProxyContext;
+import com.aws.sample.amazonmqintegration.core.Route;
+import com.aws.sample.amazonmqintegration.core.ServiceConfiguration;
+
+/**
+ * The route table of the proxy. A proxy process runs every route listed in /PROD/INTEGRATION-APP/PROXY/ROUTES, or all of them if the parameter is missing.
+ */
+public final class Routes {
+
+    public static final String ROUTES = PROXY_CONFIGURATION + "/ROUTES";
+
+    // settings of a route, relative to its configuration
+    public static final String SQS_BATCH_SIZE = "/SQS-BATCH-SIZE";
+    public static final String SQS_BATCH_LINGER = "/SQS-BATCH-LINGER-MS";
+    public static final String CONSUMERS = "/CONSUMERS";
+    public static final String SQS_POLLERS = "/SQS-POLLERS";
+    public static final String BROKER_WORKERS = "/BROKER-WORKERS";
+    public static final String HAND_OFF_CAPACITY = "/HAND-OFF-CAPACITY";
+    public static final String AWS_IN_FLIGHT = "/AWS-IN-FLIGHT";
+    public static final String PRODUCER_WINDOW = "/PRODUCER-WINDOW";
+    public static final String PREFETCH = "/PREFETCH";
+    public static final String ACK_BATCH_SIZE = "/ACK-BATCH-SIZE";
+    public static final String ACK_BATCH_LINGER = "/ACK-BATCH-LINGER-MS";
+    public static final String ROUND_TRIP_TIMEOUT = "/ROUND-TRIP-TIMEOUT-MS";
+    public static final String MAX_OUTSTANDING_REQUESTS = "/MAX-OUTSTANDING-REQUESTS";
+
+    // the response queues and endpoints of a route are named after the route
+    static final String RESPONSE = "-RESPONSE";
+
+    private static final Map<String, Route> ALL = new LinkedHashMap<>();
+
+    static {
+        register(new PointToPointOneWayTraditionalRoute());
+        register(new PointToPointOneWayCloudNativeRoute());
+        register(new PointToPointRequestResponseTraditionalRoute());
+        register(new PointToPointRequestResponseCloudNativeRoute());
+        register(new PublishSubscribeOneWayTraditionalRoute());
+        register(new PublishSubscribeRequestResponseTraditionalRoute());
+        register(new PublishSubscribeRequestResponseCloudNativeRoute());
+    }
+
+    private Routes() {
+    }
+
+    private static void register(Route route) {
+        ALL.put(route.name(), route);
+    }
+
+    public static Route get(String name) {
+        Route route = ALL.get(name);
+        if (route == null) {
+            throw new IllegalArgumentException(String.format("Unknown route '%s'", name));
+        }
+        return route;
+    }
+
+    public static List<Route> configured(ServiceConfiguration conf) {
+        String names = conf.get(ROUTES);
+        if (names == null) {
+            return new ArrayList<>(ALL.values());
+        }
+
+        List<Route> routes = new ArrayList<>();
+        for (String name : names.split(",")) {
+            if (!name.trim().isEmpty()) {
+                routes.add(get(name.trim()));
+            }
+        }
+        return routes;
+    }
+
+    // the queues and endpoints of all routes, the proxy settings and the settings of every route
+    public static ConfigurationProvider provider() {
+        List<String> prefixes = new ArrayList<>();
+        prefixes.add(BROKER_QUEUE);
+        prefixes.add(BROKER_TOPIC);
+        prefixes.add(SQS_ENDPOINT);
+        prefixes.add(SNS_ENDPOINT);
+        prefixes.add(PROXY_CONFIGURATION);
+        for (Route route : ALL.values()) {
+            prefixes.add(route.configuration());
+        }
+        return ServiceConfiguration.provider(prefixes.toArray(new String[prefixes.size()]));
+    }
+
+    // the parameters a route is built from, its queues and endpoints are named after the route
+    public static Map<String, String> parameters(ServiceConfiguration conf, Route route) {
+        return conf.filter(key -> key.endsWith("/" + route.name())
+            || key.endsWith("/" + route.name() + RESPONSE)
+            || key.startsWith(route.configuration() + "/"));
+    }
+
+    // closes the sinks of a route which failed to start before a source took them over
+    static void close(List<JmsSink> sinks) {
+        for (JmsSink sink : sinks) {
+            sink.close();
+        }
+    }
+
+    // runs a single route in its own process, with the client ids the broker already knows it by
+    public static void standalone(String name, String requestClientId, String responseClientId) {
+        ConfigurationProvider provider = provider();
+        RouteSupervisor supervisor = new RouteSupervisor(new ProxyContext(provider.get(), requestClientId, responseClientId), conf -> Collections.singletonList(get(name)));
+        supervisor.apply(provider.get());
+        provider.onChange(supervisor::apply);
+    }
+}
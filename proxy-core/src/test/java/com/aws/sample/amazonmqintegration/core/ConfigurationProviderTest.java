@@ -0,0 +1,152 @@
+package com.aws.sample.amazonmqintegration.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.amazonaws.services.simplesystemsmanagement.AbstractAWSSimpleSystemsManagement;
+import com.amazonaws.services.simplesystemsmanagement.model.GetParametersByPathRequest;
+import com.amazonaws.services.simplesystemsmanagement.model.GetParametersByPathResult;
+import com.amazonaws.services.simplesystemsmanagement.model.Parameter;
+
+public class ConfigurationProviderTest {
+
+    private static final long TTL = TimeUnit.MINUTES.toMillis(5);
+
+    private final List<String> prefixes = Arrays.asList("/A", "/B");
+    private final InMemoryParameterStore ssm = new InMemoryParameterStore();
+    private Path directory;
+    private Path cacheFile;
+
+    @Before
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("configuration");
+        cacheFile = directory.resolve("configuration.properties");
+    }
+
+    @After
+    public void deleteDirectory() throws IOException {
+        Files.deleteIfExists(cacheFile);
+        Files.delete(directory);
+    }
+
+    @Test
+    public void readsEveryPageOfEveryPrefix() {
+        for (int i = 0; i < 25; i++) {
+            ssm.parameters.put("/A/" + i, "a" + i);
+        }
+        ssm.parameters.put("/B/KEY", "b");
+
+        ServiceConfiguration conf = new ConfigurationProvider(prefixes, ssm, null, TTL).read();
+
+        for (int i = 0; i < 25; i++) {
+            assertEquals("a" + i, conf.get("/A/" + i));
+        }
+        assertEquals("b", conf.get("/B/KEY"));
+        // three pages of /A, one of /B
+        assertEquals(Arrays.asList(null, "10", "20"), ssm.tokens.get("/A"));
+        assertEquals(Arrays.asList((String) null), ssm.tokens.get("/B"));
+    }
+
+    @Test
+    public void readStartsNoRefresher() {
+        ssm.parameters.put("/A/KEY", "a");
+
+        new ConfigurationProvider(prefixes, ssm, null, TTL).read();
+
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            assertFalse(thread.getName().equals("configuration-refresher"));
+        }
+    }
+
+    @Test
+    public void freshCacheFileIsReadInsteadOfParameterStore() {
+        ssm.parameters.put("/A/KEY", "a");
+        new ConfigurationProvider(prefixes, ssm, cacheFile, TTL).read();
+
+        ssm.failing = true;
+        ServiceConfiguration conf = new ConfigurationProvider(prefixes, ssm, cacheFile, TTL).read();
+
+        assertEquals("a", conf.get("/A/KEY"));
+    }
+
+    @Test
+    public void staleCacheFileIsRefreshed() {
+        ssm.parameters.put("/A/KEY", "a");
+        new ConfigurationProvider(prefixes, ssm, cacheFile, 0).read();
+
+        ssm.parameters.put("/A/KEY", "changed");
+        ServiceConfiguration conf = new ConfigurationProvider(prefixes, ssm, cacheFile, 0).read();
+
+        assertEquals("changed", conf.get("/A/KEY"));
+    }
+
+    @Test
+    public void staleCacheFileIsReadWhenParameterStoreFails() {
+        ssm.parameters.put("/A/KEY", "a");
+        new ConfigurationProvider(prefixes, ssm, cacheFile, 0).read();
+
+        ssm.failing = true;
+        ServiceConfiguration conf = new ConfigurationProvider(prefixes, ssm, cacheFile, 0).read();
+
+        assertEquals("a", conf.get("/A/KEY"));
+    }
+
+    @Test
+    public void cacheFileOfOtherPrefixesIsIgnored() {
+        ssm.parameters.put("/A/KEY", "a");
+        new ConfigurationProvider(prefixes, ssm, cacheFile, TTL).read();
+
+        ssm.parameters.put("/C/KEY", "c");
+        ServiceConfiguration conf = new ConfigurationProvider(Arrays.asList("/A", "/C"), ssm, cacheFile, TTL).read();
+
+        assertEquals("c", conf.get("/C/KEY"));
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void withoutCacheFileTheFailureIsThrown() {
+        ssm.failing = true;
+        new ConfigurationProvider(prefixes, ssm, cacheFile, TTL).read();
+    }
+
+    // hands out the parameters below a path in pages of at most MaxResults, the next token is the index of the next page
+    private static class InMemoryParameterStore extends AbstractAWSSimpleSystemsManagement {
+
+        private final Map<String, String> parameters = new TreeMap<>();
+        private final Map<String, List<String>> tokens = new TreeMap<>();
+        private volatile boolean failing;
+
+        @Override
+        public synchronized GetParametersByPathResult getParametersByPath(GetParametersByPathRequest request) {
+            if (failing) {
+                throw new IllegalStateException("throttled");
+            }
+            tokens.computeIfAbsent(request.getPath(), path -> new ArrayList<>()).add(request.getNextToken());
+
+            List<Parameter> below = new ArrayList<>();
+            for (Map.Entry<String, String> parameter : parameters.entrySet()) {
+                if (parameter.getKey().startsWith(request.getPath() + "/")) {
+                    below.add(new Parameter().withName(parameter.getKey()).withValue(parameter.getValue()));
+                }
+            }
+            int from = request.getNextToken() != null ? Integer.parseInt(request.getNextToken()) : 0;
+            int to = Math.min(from + request.getMaxResults(), below.size());
+            return new GetParametersByPathResult()
+                .withParameters(new ArrayList<>(below.subList(from, to)))
+                .withNextToken(to < below.size() ? String.valueOf(to) : null);
+        }
+    }
+}
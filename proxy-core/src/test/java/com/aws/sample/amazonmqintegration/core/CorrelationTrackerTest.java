@@ -0,0 +1,322 @@
+package com.aws.sample.amazonmqintegration.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.junit.Test;
+
+public class CorrelationTrackerTest {
+
+    // with this timeout a tick of the wheel is 1000 ns and one turn 64000 ns
+    private static final long TIMEOUT = 62_000;
+    private static final long TICK = 1_000;
+
+    private final LongAdder timedOut = new LongAdder();
+
+    @Test
+    public void matchesResponseWithItsRequest() {
+        CorrelationTracker tracker = new CorrelationTracker(TimeUnit.SECONDS.toNanos(1), 16, 1, timedOut);
+        long start = System.nanoTime();
+
+        assertTrue(tracker.request("a", start));
+        assertEquals(1, tracker.outstanding(start));
+        assertEquals(1000, tracker.response("a", start + 1000));
+        assertEquals(0, tracker.outstanding(start + 1000));
+    }
+
+    @Test
+    public void redeliveredRequestKeepsItsFirstArrival() {
+        CorrelationTracker tracker = new CorrelationTracker(TimeUnit.SECONDS.toNanos(1), 16, 1, timedOut);
+        long start = System.nanoTime();
+
+        assertTrue(tracker.request("a", start));
+        assertTrue(tracker.request("a", start + 500));
+        assertEquals(1, tracker.outstanding(start + 500));
+        assertEquals(1000, tracker.response("a", start + 1000));
+    }
+
+    @Test
+    public void secondResponseIsLate() {
+        CorrelationTracker tracker = new CorrelationTracker(TimeUnit.SECONDS.toNanos(1), 16, 1, timedOut);
+        long start = System.nanoTime();
+
+        tracker.request("a", start);
+        tracker.response("a", start + 1000);
+        assertEquals(CorrelationTracker.LATE, tracker.response("a", start + 2000));
+    }
+
+    @Test
+    public void responseWithoutRequestIsUnmatched() {
+        CorrelationTracker tracker = new CorrelationTracker(TimeUnit.SECONDS.toNanos(1), 16, 1, timedOut);
+        long start = System.nanoTime();
+
+        tracker.request("a", start);
+        assertEquals(CorrelationTracker.UNMATCHED, tracker.response("b", start + 1000));
+        assertEquals(1, tracker.outstanding(start + 1000));
+    }
+
+    @Test
+    public void responseAfterTimeoutIsLateUntilTheRequestIsForgotten() {
+        long timeout = TimeUnit.SECONDS.toNanos(1);
+        CorrelationTracker tracker = new CorrelationTracker(timeout, 16, 1, timedOut);
+        long start = System.nanoTime();
+
+        tracker.request("a", start);
+        tracker.expire(start + 2 * timeout);
+        assertEquals(1, timedOut.sum());
+        assertEquals(0, tracker.outstanding(start + 2 * timeout));
+        assertEquals(CorrelationTracker.LATE, tracker.response("a", start + 2 * timeout));
+
+        // remembered for another timeout after it expired
+        assertEquals(CorrelationTracker.UNMATCHED, tracker.response("a", start + 4 * timeout));
+    }
+
+    @Test
+    public void fullTrackerForgetsAnsweredRequestsBeforeRefusingNewOnes() {
+        CorrelationTracker tracker = new CorrelationTracker(TimeUnit.SECONDS.toNanos(1), 2, 1, timedOut);
+        long start = System.nanoTime();
+
+        assertTrue(tracker.request("a", start));
+        assertTrue(tracker.request("b", start));
+        assertFalse(tracker.request("c", start));
+
+        tracker.response("a", start + 1000);
+        assertTrue(tracker.request("c", start + 2000));
+        // its entry went to c
+        assertEquals(CorrelationTracker.UNMATCHED, tracker.response("a", start + 3000));
+        assertEquals(2, tracker.outstanding(start + 3000));
+    }
+
+    @Test
+    public void expiresNeitherEarlyNorLate() {
+        CorrelationTracker tracker = new CorrelationTracker(TIMEOUT, 16, 1, timedOut);
+        long start = System.nanoTime();
+
+        tracker.request("a", start);
+        tracker.request("b", start + 40 * TICK);
+
+        tracker.expire(start + TIMEOUT - TICK);
+        assertEquals(0, timedOut.sum());
+        tracker.expire(start + TIMEOUT + 2 * TICK);
+        assertEquals(1, timedOut.sum());
+        assertEquals(1, tracker.outstanding(start + TIMEOUT + 2 * TICK));
+        assertEquals(CorrelationTracker.LATE, tracker.response("a", start + TIMEOUT + 2 * TICK));
+        assertTrue(tracker.response("b", start + TIMEOUT + 2 * TICK) >= 0);
+    }
+
+    @Test
+    public void expiresAfterMoreThanOneTurnOfTheWheelWithoutTraffic() {
+        CorrelationTracker tracker = new CorrelationTracker(TIMEOUT, 16, 1, timedOut);
+        long start = System.nanoTime();
+
+        tracker.request("a", start);
+        tracker.request("b", start + 40 * TICK);
+
+        // ten turns later every slot was skipped over at once
+        long later = start + 10 * 64 * TICK;
+        tracker.expire(later);
+        assertEquals(2, timedOut.sum());
+        assertEquals(0, tracker.outstanding(later));
+
+        // and the wheel keeps working from there
+        tracker.request("c", later);
+        tracker.expire(later + TIMEOUT - TICK);
+        assertEquals(1, tracker.outstanding(later + TIMEOUT - TICK));
+        tracker.expire(later + TIMEOUT + 2 * TICK);
+        assertEquals(3, timedOut.sum());
+    }
+
+    @Test
+    public void expiresContinuouslyOverSeveralTurnsOfTheWheel() {
+        CorrelationTracker tracker = new CorrelationTracker(TIMEOUT, 128, 1, timedOut);
+        long start = System.nanoTime();
+
+        int requests = 3 * 64;
+        for (int i = 0; i < requests; i++) {
+            long now = start + i * TICK;
+            assertTrue(tracker.request("r" + i, now));
+            int outstanding = tracker.outstanding(now);
+            // a request expires within one tick after its timeout
+            if (i < 62) {
+                assertEquals(i + 1, outstanding);
+            } else {
+                assertTrue("outstanding " + outstanding + " after " + i, outstanding == 62 || outstanding == 63);
+            }
+        }
+        long end = start + (requests - 1) * TICK;
+        assertEquals(requests, timedOut.sum() + tracker.outstanding(end));
+    }
+
+    @Test
+    public void findsEntriesAfterRemovalWrapsAroundTheIndex() {
+        // 4 entries, an index of 16 slots
+        CorrelationTracker tracker = new CorrelationTracker(TimeUnit.SECONDS.toNanos(1), 4, 1, timedOut);
+        List<String> lastSlot = idsWithHomeSlot(15, 16, 3);
+        String a = lastSlot.get(0);
+        String b = lastSlot.get(1);
+        String c = lastSlot.get(2);
+        String d = idsWithHomeSlot(0, 16, 1).get(0);
+        long start = System.nanoTime();
+
+        // a takes slot 15, b and c wrap around to slots 0 and 1, d moves on from its home slot 0 to 2
+        tracker.request(a, start);
+        tracker.request(b, start);
+        tracker.request(c, start);
+        tracker.request(d, start);
+
+        // a new request needs the entry of the answered a, so a is removed and b, c and d move back across the end of the index
+        tracker.response(a, start + 1000);
+        assertTrue(tracker.request("e", start + 2000));
+
+        assertEquals(3000, tracker.response(b, start + 3000));
+        assertEquals(3000, tracker.response(c, start + 3000));
+        assertEquals(3000, tracker.response(d, start + 3000));
+        assertEquals(1000, tracker.response("e", start + 3000));
+        assertEquals(CorrelationTracker.UNMATCHED, tracker.response(a, start + 3000));
+    }
+
+    @Test
+    public void keepsWrappedEntriesWhoseHomeIsAfterTheRemovedOne() {
+        CorrelationTracker tracker = new CorrelationTracker(TimeUnit.SECONDS.toNanos(1), 4, 1, timedOut);
+        String p = idsWithHomeSlot(14, 16, 1).get(0);
+        List<String> lastSlot = idsWithHomeSlot(15, 16, 2);
+        String x = lastSlot.get(0);
+        String y = lastSlot.get(1);
+        long start = System.nanoTime();
+
+        // p takes slot 14, x slot 15 and y wraps around to slot 0
+        tracker.request(p, start);
+        tracker.request(x, start);
+        tracker.request(y, start);
+        tracker.request("q", start);
+
+        // removing p must not move y into slot 14, a lookup of y starts at 15
+        tracker.response(p, start + 1000);
+        assertTrue(tracker.request("e", start + 2000));
+
+        assertEquals(3000, tracker.response(x, start + 3000));
+        assertEquals(3000, tracker.response(y, start + 3000));
+        assertEquals(3000, tracker.response("q", start + 3000));
+    }
+
+    @Test
+    public void stripesMatchConcurrentRequestsAndResponses() throws InterruptedException {
+        CorrelationTracker tracker = new CorrelationTracker(TimeUnit.MINUTES.toNanos(5), 100_000, CorrelationTracker.STRIPES, timedOut);
+        AtomicLong mismatches = new AtomicLong();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            final String prefix = "thread-" + t + "-";
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 50_000; i++) {
+                    String id = prefix + i;
+                    long now = System.nanoTime();
+                    if (!tracker.request(id, now) || tracker.response(id, now) < 0) {
+                        mismatches.incrementAndGet();
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(0, mismatches.get());
+        assertEquals(0, tracker.outstanding(System.nanoTime()));
+        assertEquals(0, timedOut.sum());
+    }
+
+    @Test
+    public void stripesCountOutstandingAndTimedOutRequestsOfConcurrentThreads() throws InterruptedException {
+        long timeout = TimeUnit.SECONDS.toNanos(1);
+        int stripes = 8;
+        int perStripe = 5_000;
+        CorrelationTracker tracker = new CorrelationTracker(timeout, stripes * 2 * perStripe, stripes, timedOut);
+        long start = System.nanoTime();
+
+        // every thread requests in a stripe of its own and answers every second request, while another one keeps expiring
+        AtomicLong mismatches = new AtomicLong();
+        List<Thread> threads = new ArrayList<>();
+        for (int stripe = 0; stripe < stripes; stripe++) {
+            final List<String> ids = idsInStripe(stripe, stripes, perStripe);
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < ids.size(); i++) {
+                    if (!tracker.request(ids.get(i), start)) {
+                        mismatches.incrementAndGet();
+                    }
+                    if (i % 2 == 0 && tracker.response(ids.get(i), start + 1000) != 1000) {
+                        mismatches.incrementAndGet();
+                    }
+                }
+            });
+            threads.add(thread);
+        }
+        AtomicBoolean done = new AtomicBoolean();
+        Thread expirer = new Thread(() -> {
+            while (!done.get()) {
+                tracker.expire(start + 1000);
+                tracker.outstanding(start + 1000);
+            }
+        });
+        expirer.start();
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        done.set(true);
+        expirer.join();
+
+        assertEquals(0, mismatches.get());
+        assertEquals(0, timedOut.sum());
+        assertEquals(stripes * perStripe / 2, tracker.outstanding(start + 1000));
+
+        tracker.expire(start + 2 * timeout);
+        assertEquals(stripes * perStripe / 2, timedOut.sum());
+        assertEquals(0, tracker.outstanding(start + 2 * timeout));
+    }
+
+    // correlation ids which fall into the given stripe, with the hash of the tracker
+    private static List<String> idsInStripe(int stripe, int stripes, int count) {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; ids.size() < count; i++) {
+            String id = "stripe-" + stripe + "-" + i;
+            if (((int) (hash(id) >>> 48) & (stripes - 1)) == stripe) {
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+
+    // correlation ids whose home slot in an index of the given size is the given slot, with the hash of the tracker
+    private static List<String> idsWithHomeSlot(int slot, int indexSize, int count) {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; ids.size() < count; i++) {
+            String id = "id-" + i;
+            long hash = hash(id);
+            if (((int) (hash ^ (hash >>> 32)) & (indexSize - 1)) == slot) {
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+
+    private static long hash(String id) {
+        long hash = 0xcbf29ce484222325L;
+        for (int j = 0; j < id.length(); j++) {
+            hash ^= id.charAt(j);
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+}
@@ -0,0 +1,51 @@
+package com.aws.sample.amazonmqintegration.core;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public class FailoverMonitorTest {
+
+    private final FailoverMonitor monitor = new FailoverMonitor();
+
+    @Test
+    public void failoverEndsWhenTheLastConnectionResumed() {
+        FailoverMonitor.Listener first = monitor.listener();
+        FailoverMonitor.Listener second = monitor.listener();
+
+        first.transportInterupted();
+        second.transportInterupted();
+        first.transportResumed();
+        assertEquals(0, monitor.getFailovers());
+
+        second.transportResumed();
+        assertEquals(1, monitor.getFailovers());
+    }
+
+    @Test
+    public void connectionClosedWhileInterruptedNoLongerCounts() {
+        FailoverMonitor.Listener closed = monitor.listener();
+        FailoverMonitor.Listener resumed = monitor.listener();
+
+        closed.transportInterupted();
+        resumed.transportInterupted();
+        closed.closed();
+        resumed.transportResumed();
+        assertEquals(1, monitor.getFailovers());
+
+        // the next failover starts and ends on its own
+        resumed.transportInterupted();
+        resumed.transportResumed();
+        assertEquals(2, monitor.getFailovers());
+    }
+
+    @Test
+    public void closingAConnectionWhichIsNotInterruptedEndsNoFailover() {
+        FailoverMonitor.Listener listener = monitor.listener();
+
+        listener.transportResumed();
+        listener.closed();
+
+        assertEquals(0, monitor.getFailovers());
+    }
+}
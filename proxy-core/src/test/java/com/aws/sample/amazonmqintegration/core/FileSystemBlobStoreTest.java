@@ -0,0 +1,84 @@
+package com.aws.sample.amazonmqintegration.core;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class FileSystemBlobStoreTest {
+
+    private Path directory;
+    private FileSystemBlobStore blobStore;
+
+    @Before
+    public void createBlobStore() throws IOException {
+        directory = Files.createTempDirectory("blob-store");
+        blobStore = new FileSystemBlobStore(directory);
+    }
+
+    @After
+    public void deleteBlobStore() throws IOException {
+        blobStore.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    @Test
+    public void readsWhatItStored() throws IOException {
+        byte[] payload = { 1, 2, 3 };
+        assertArrayEquals(payload, blobStore.get(blobStore.put(payload)));
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsReferencesOutsideOfTheStore() throws IOException {
+        Files.write(directory.resolveSibling(directory.getFileName() + "-secret"), new byte[] { 1 });
+        try {
+            blobStore.get("../" + directory.getFileName() + "-secret");
+        } finally {
+            Files.delete(directory.resolveSibling(directory.getFileName() + "-secret"));
+        }
+    }
+
+    @Test
+    public void sweepDeletesOnlyExpiredPayloads() throws IOException {
+        String expired = blobStore.put(new byte[] { 1 });
+        String current = blobStore.put(new byte[] { 2 });
+        long now = System.currentTimeMillis();
+        Files.setLastModifiedTime(directory.resolve(expired), FileTime.fromMillis(now - TimeUnit.DAYS.toMillis(15)));
+
+        blobStore.sweep(now - FileSystemBlobStore.DEFAULT_RETENTION_MILLIS);
+
+        assertFalse(Files.exists(directory.resolve(expired)));
+        assertTrue(Files.exists(directory.resolve(current)));
+    }
+
+    @Test
+    public void storesShareOneSweeperUntilTheyAreClosed() throws IOException {
+        FileSystemBlobStore other = new FileSystemBlobStore(directory).withRetention(FileSystemBlobStore.DEFAULT_RETENTION_MILLIS);
+        blobStore.withRetention(FileSystemBlobStore.DEFAULT_RETENTION_MILLIS).withRetention(TimeUnit.DAYS.toMillis(1));
+
+        assertTrue(blobStore.sweeping());
+        assertEquals(1, Thread.getAllStackTraces().keySet().stream().filter(thread -> thread.getName().equals("blob-store-sweeper")).count());
+
+        blobStore.close();
+        other.close();
+        assertFalse(blobStore.sweeping());
+        assertFalse(other.sweeping());
+        // still readable once closed
+        byte[] payload = { 1 };
+        assertArrayEquals(payload, blobStore.get(blobStore.put(payload)));
+    }
+}
@@ -0,0 +1,140 @@
+package com.aws.sample.amazonmqintegration.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.jms.DeliveryMode;
+import javax.jms.JMSException;
+import javax.jms.MessageFormatException;
+
+import org.apache.activemq.command.ActiveMQTextMessage;
+import org.junit.Test;
+
+public class HeaderCodecTest {
+
+    private final HeaderCodec codec = HeaderCodec.NONE;
+
+    @Test
+    public void restoresPropertiesOfEveryType() throws JMSException, IOException {
+        ActiveMQTextMessage message = new ActiveMQTextMessage();
+        message.setStringProperty("string", "value \u00e4 \u20ac");
+        message.setStringProperty("empty", "");
+        message.setBooleanProperty("true", true);
+        message.setBooleanProperty("false", false);
+        message.setByteProperty("byte", Byte.MIN_VALUE);
+        message.setShortProperty("short", Short.MIN_VALUE);
+        message.setIntProperty("int", -1);
+        message.setIntProperty("maxInt", Integer.MAX_VALUE);
+        message.setLongProperty("long", Long.MIN_VALUE);
+        message.setFloatProperty("float", -1.5f);
+        message.setDoubleProperty("double", Double.MAX_VALUE);
+        message.setDoubleProperty("nan", Double.NaN);
+
+        ActiveMQTextMessage restored = roundTrip(message);
+
+        for (String name : Arrays.asList("string", "empty", "true", "false", "byte", "short", "int", "maxInt", "long", "float", "double", "nan")) {
+            assertEquals(name, message.getObjectProperty(name), restored.getObjectProperty(name));
+        }
+        assertEquals("", restored.getStringProperty("empty"));
+    }
+
+    @Test
+    public void restoresHeaders() throws JMSException, IOException {
+        ActiveMQTextMessage message = new ActiveMQTextMessage();
+        message.setJMSDeliveryMode(DeliveryMode.NON_PERSISTENT);
+        message.setJMSPriority(9);
+        message.setJMSExpiration(System.currentTimeMillis() + 60_000);
+        message.setJMSType("order");
+
+        HeaderCodec.Headers headers = HeaderCodec.decode(codec.encode(message));
+        ActiveMQTextMessage restored = new ActiveMQTextMessage();
+        headers.applyTo(restored);
+
+        assertEquals(DeliveryMode.NON_PERSISTENT, headers.deliveryMode());
+        assertEquals(9, headers.priority());
+        assertTrue(headers.timeToLive() > 0 && headers.timeToLive() <= 60_000);
+        assertEquals("order", restored.getJMSType());
+    }
+
+    @Test
+    public void keepsMissingTypeAndExpiration() throws JMSException, IOException {
+        ActiveMQTextMessage message = new ActiveMQTextMessage();
+        message.setJMSType(null);
+
+        HeaderCodec.Headers headers = HeaderCodec.decode(codec.encode(message));
+        ActiveMQTextMessage restored = new ActiveMQTextMessage();
+        headers.applyTo(restored);
+
+        assertNull(restored.getJMSType());
+        assertEquals(0, headers.timeToLive());
+    }
+
+    @Test
+    public void skipsNullPropertiesAndBrokerSetProperties() throws JMSException, IOException {
+        ActiveMQTextMessage message = new ActiveMQTextMessage();
+        message.setStringProperty("missing", null);
+        message.setStringProperty("JMSXGroupID", "group");
+        message.setIntProperty("JMSXGroupSeq", 3);
+        message.setStringProperty("JMSXUserID", "user");
+
+        ActiveMQTextMessage restored = roundTrip(message);
+
+        assertFalse(restored.propertyExists("missing"));
+        assertEquals("group", restored.getStringProperty("JMSXGroupID"));
+        assertEquals(3, restored.getIntProperty("JMSXGroupSeq"));
+        assertNull(restored.getStringProperty("JMSXUserID"));
+    }
+
+    @Test(expected = MessageFormatException.class)
+    public void rejectsMapProperties() throws JMSException {
+        ActiveMQTextMessage message = new ActiveMQTextMessage();
+        message.setObjectProperty("map", new HashMap<String, Object>());
+        codec.encode(message);
+    }
+
+    @Test(expected = MessageFormatException.class)
+    public void rejectsListProperties() throws JMSException {
+        ActiveMQTextMessage message = new ActiveMQTextMessage();
+        message.setObjectProperty("list", Collections.emptyList());
+        codec.encode(message);
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsTruncatedAttribute() throws JMSException, IOException {
+        ActiveMQTextMessage message = new ActiveMQTextMessage();
+        message.setStringProperty("string", "value");
+        ByteBuffer encoded = codec.encode(message);
+        encoded.limit(encoded.limit() - 2);
+        HeaderCodec.decode(encoded);
+    }
+
+    @Test
+    public void capsNamedProperties() {
+        Map<String, String> parameters = new HashMap<>();
+        parameters.put(HeaderCodec.NAMED_PROPERTIES, " a,b,,a,JMSCorrelationID,c,d,e,f,g");
+        HeaderCodec configured = HeaderCodec.fromConfiguration(new ServiceConfiguration(parameters));
+
+        assertEquals(Arrays.asList("a", "b", "c", "d", "e"), configured.namedProperties());
+        assertEquals(HeaderCodec.MAX_NAMED_PROPERTIES, configured.namedProperties().size());
+    }
+
+    @Test
+    public void withoutNamedPropertiesSendsNone() {
+        assertTrue(HeaderCodec.fromConfiguration(new ServiceConfiguration(Collections.emptyMap())).namedProperties().isEmpty());
+    }
+
+    private ActiveMQTextMessage roundTrip(ActiveMQTextMessage message) throws JMSException, IOException {
+        ActiveMQTextMessage restored = new ActiveMQTextMessage();
+        HeaderCodec.decode(codec.encode(message)).applyTo(restored);
+        return restored;
+    }
+}
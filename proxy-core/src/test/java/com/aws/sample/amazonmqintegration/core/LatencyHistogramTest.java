@@ -0,0 +1,101 @@
+package com.aws.sample.amazonmqintegration.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void emptyHistogramReportsZero() {
+        LatencyHistogram.Snapshot snapshot = new LatencyHistogram().snapshot();
+
+        assertEquals(0, snapshot.getCount());
+        assertEquals(0, snapshot.getMeanMicros());
+        assertEquals(0, snapshot.getP50Micros());
+        assertEquals(0, snapshot.getP999Micros());
+        assertEquals(0, snapshot.getMaxMicros());
+    }
+
+    @Test
+    public void smallValuesAreExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 63; i++) {
+            histogram.record(i);
+        }
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+        assertEquals(63, snapshot.getCount());
+        assertEquals(32, snapshot.getMeanMicros());
+        assertEquals(32, snapshot.getP50Micros());
+        assertEquals(57, snapshot.getP90Micros());
+        assertEquals(63, snapshot.getP99Micros());
+        assertEquals(63, snapshot.getMaxMicros());
+    }
+
+    @Test
+    public void percentilesAreAtMostOneBucketAboveTheTrueValue() {
+        Random random = new Random(42);
+        LatencyHistogram histogram = new LatencyHistogram();
+        long[] values = new long[100_000];
+        for (int i = 0; i < values.length; i++) {
+            // spread over many powers of two, from microseconds to minutes
+            values[i] = (long) Math.pow(2, random.nextDouble() * 36) - 1;
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+        assertBounds(values, 0.5, snapshot.getP50Micros());
+        assertBounds(values, 0.9, snapshot.getP90Micros());
+        assertBounds(values, 0.99, snapshot.getP99Micros());
+        assertBounds(values, 0.999, snapshot.getP999Micros());
+        assertEquals(values[values.length - 1], snapshot.getMaxMicros());
+    }
+
+    @Test
+    public void percentileNeverExceedsTheMaximum() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(1000);
+
+        // 1000 falls into the bucket up to 1007
+        assertEquals(1000, histogram.snapshot().getP999Micros());
+    }
+
+    @Test
+    public void clampsValuesOutsideOfTheRange() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE);
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+        assertEquals(2, snapshot.getCount());
+        assertEquals(0, snapshot.getP50Micros());
+        assertEquals((1L << 36) - 1, snapshot.getMaxMicros());
+        assertEquals((1L << 36) - 1, snapshot.getP999Micros());
+    }
+
+    @Test
+    public void resetStartsOver() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(5000);
+        histogram.reset();
+        histogram.record(10);
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+        assertEquals(1, snapshot.getCount());
+        assertEquals(10, snapshot.getMeanMicros());
+        assertEquals(10, snapshot.getMaxMicros());
+    }
+
+    // a percentile is never below the true value and at most 1/32 above it, the width of its bucket
+    private static void assertBounds(long[] sorted, double percentile, long reported) {
+        long actual = sorted[(int) Math.ceil(sorted.length * percentile) - 1];
+        assertTrue(String.format("p%s %d below %d", percentile, reported, actual), reported >= actual);
+        assertTrue(String.format("p%s %d too far above %d", percentile, reported, actual), reported <= actual + actual / 32 + 1);
+    }
+}
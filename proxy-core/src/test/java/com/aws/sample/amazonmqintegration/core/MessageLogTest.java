@@ -0,0 +1,183 @@
+package com.aws.sample.amazonmqintegration.core;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.io.UnsupportedEncodingException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class MessageLogTest {
+
+    private static final Pattern DROPPED = Pattern.compile("\"event\":\"dropped\",\"count\":(\\d+)");
+
+    private final ByteArrayOutputStream captured = new ByteArrayOutputStream();
+    private PrintStream stdout;
+
+    @Before
+    public void captureStdout() throws UnsupportedEncodingException {
+        // the events of earlier tests must not fill up the ring buffer
+        MessageLog.flush();
+        stdout = System.out;
+        System.setOut(new PrintStream(captured, true, "UTF-8"));
+    }
+
+    @After
+    public void restoreStdout() {
+        configure("INFO", 1);
+        System.setOut(stdout);
+    }
+
+    @Test
+    public void writesOneJsonLinePerEvent() {
+        configure("INFO", 1);
+        String id = unique("id");
+        MessageLog.received("messageId", id);
+        MessageLog.forwarded("messageId", id);
+        MessageLog.failed("messageId", id, "broker \"down\"\n");
+
+        String output = waitFor(id + "\",\"reason\"");
+        assertTrue(output.contains("\"event\":\"received\",\"thread\":\"" + Thread.currentThread().getName() + "\",\"messageId\":\"" + id + "\"}\n"));
+        assertTrue(output.contains("\"event\":\"forwarded\""));
+        assertTrue(output.contains("\"reason\":\"broker \\\"down\\\"\\u000a\"}\n"));
+    }
+
+    @Test
+    public void errorLevelLogsOnlyFailures() {
+        configure("ERROR", 1);
+        String id = unique("error-level");
+        MessageLog.received("messageId", id);
+        MessageLog.forwarded("messageId", id);
+        MessageLog.failed("messageId", id, "failure");
+
+        String output = waitFor("\"reason\":\"failure\"");
+        assertFalse(output.contains("\"event\":\"received\",\"thread\":\"" + Thread.currentThread().getName() + "\",\"messageId\":\"" + id));
+        assertFalse(output.contains("\"event\":\"forwarded\",\"thread\":\"" + Thread.currentThread().getName() + "\",\"messageId\":\"" + id));
+    }
+
+    @Test
+    public void offLevelLogsNothing() {
+        configure("OFF", 1);
+        String id = unique("off-level");
+        MessageLog.forwarded("messageId", id);
+        MessageLog.failed("messageId", id, "failure");
+        MessageLog.timedOut("correlationId", id);
+
+        // the writer keeps the order, once the marker is written the events before it would be as well
+        configure("ERROR", 1);
+        String marker = unique("marker");
+        MessageLog.failed("messageId", marker, "marker");
+        assertFalse(waitFor(marker).contains(id));
+    }
+
+    @Test
+    public void sampleRateSkipsMostEvents() {
+        configure("INFO", 1000);
+        String prefix = unique("sampled");
+        for (int i = 0; i < 10_000; i++) {
+            MessageLog.forwarded("messageId", prefix + "-" + i);
+        }
+        configure("ERROR", 1);
+        String marker = unique("marker");
+        MessageLog.failed("messageId", marker, "marker");
+
+        int logged = count(waitFor(marker), prefix + "-");
+        assertTrue("logged " + logged, logged < 100);
+    }
+
+    @Test
+    public void dropsInsteadOfBlockingWhenTheWriterFallsBehind() {
+        configure("INFO", 1);
+        String prefix = unique("burst");
+        int events = 100_000;
+        for (int i = 0; i < events; i++) {
+            MessageLog.forwarded("messageId", prefix + "-" + i);
+        }
+        // the dropped count is written after the next event, so the second marker follows it
+        MessageLog.failed("messageId", unique("marker"), "marker");
+        String marker = unique("marker");
+        MessageLog.failed("messageId", marker, "marker");
+
+        String output = waitFor(marker);
+        long dropped = 0;
+        Matcher matcher = DROPPED.matcher(output);
+        while (matcher.find()) {
+            dropped += Long.parseLong(matcher.group(1));
+        }
+        int written = count(output, prefix + "-");
+        assertTrue("written " + written, written <= events);
+        assertTrue("written " + written + " and dropped " + dropped, written + dropped >= events);
+    }
+
+    @Test
+    public void flushWritesEverythingLoggedSoFar() {
+        configure("INFO", 1);
+        String id = unique("flushed");
+        MessageLog.received("messageId", id);
+        MessageLog.failed("messageId", id, "failure");
+
+        MessageLog.flush();
+
+        String output = output();
+        assertTrue(output.contains("\"event\":\"received\",\"thread\":\"" + Thread.currentThread().getName() + "\",\"messageId\":\"" + id + "\"}\n"));
+        assertTrue(output.contains("\"messageId\":\"" + id + "\",\"reason\":\"failure\"}\n"));
+    }
+
+    @Test
+    public void unknownLevelLogsEverything() {
+        configure("VERBOSE", 1);
+        String id = unique("unknown-level");
+        MessageLog.forwarded("messageId", id);
+        waitFor(id);
+    }
+
+    private static void configure(String level, int sampleRate) {
+        Map<String, String> parameters = new HashMap<>();
+        parameters.put(MessageLog.LOG_LEVEL, level);
+        parameters.put(MessageLog.LOG_SAMPLE_RATE, Integer.toString(sampleRate));
+        MessageLog.configure(new ServiceConfiguration(parameters));
+    }
+
+    private static String unique(String prefix) {
+        return prefix + "-" + UUID.randomUUID();
+    }
+
+    private String waitFor(String text) {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (System.currentTimeMillis() < deadline) {
+            String output = output();
+            if (output.contains(text)) {
+                return output;
+            }
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        throw new AssertionError("not logged within 10 seconds: " + text);
+    }
+
+    private String output() {
+        try {
+            return captured.toString("UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static int count(String output, String text) {
+        int count = 0;
+        for (int i = output.indexOf(text); i >= 0; i = output.indexOf(text, i + 1)) {
+            count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,133 @@
+package com.aws.sample.amazonmqintegration.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PayloadCodecTest {
+
+    private Path directory;
+    private BlobStore blobStore;
+
+    @Before
+    public void createBlobStore() throws IOException {
+        directory = Files.createTempDirectory("blob-store");
+        blobStore = new FileSystemBlobStore(directory);
+    }
+
+    @After
+    public void deleteBlobStore() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    @Test
+    public void leavesSmallPayloadsAlone() throws IOException {
+        PayloadCodec codec = new PayloadCodec(1024, blobStore);
+        PayloadCodec.Encoded encoded = codec.encode("small");
+
+        assertEquals("small", encoded.body);
+        assertNull(encoded.contentEncoding);
+        assertNull(encoded.payloadReference);
+    }
+
+    @Test
+    public void compressesAboveTheThreshold() throws IOException {
+        PayloadCodec codec = new PayloadCodec(1024, null);
+        String text = repeat("compressible \u00e4 ", 1000);
+        PayloadCodec.Encoded encoded = codec.encode(text);
+
+        assertEquals(PayloadCodec.GZIP_BASE64, encoded.contentEncoding);
+        assertTrue(encoded.body.length() < text.length());
+        assertEquals(text, codec.decode(encoded.body, encoded.contentEncoding, encoded.payloadReference));
+    }
+
+    @Test
+    public void roundTripsEmptyText() throws IOException {
+        PayloadCodec codec = new PayloadCodec(0, blobStore);
+        PayloadCodec.Encoded encoded = codec.encode("");
+
+        assertEquals(PayloadCodec.GZIP_BASE64, encoded.contentEncoding);
+        assertEquals("", codec.decode(encoded.body, encoded.contentEncoding, encoded.payloadReference));
+    }
+
+    @Test
+    public void offloadsTextTooLargeForSqs() throws IOException {
+        PayloadCodec codec = new PayloadCodec(-1, blobStore);
+        String text = randomText(PayloadCodec.MAX_PAYLOAD_SIZE + 1);
+        PayloadCodec.Encoded encoded = codec.encode(text);
+
+        assertNull(encoded.contentEncoding);
+        assertNotNull(encoded.payloadReference);
+        assertEquals(encoded.payloadReference, encoded.body);
+        assertEquals(text, codec.decode(encoded.body, encoded.contentEncoding, encoded.payloadReference));
+    }
+
+    @Test
+    public void offloadsTextStillTooLargeWhenCompressed() throws IOException {
+        PayloadCodec codec = new PayloadCodec(1024, blobStore);
+        String text = randomText(4 * PayloadCodec.MAX_PAYLOAD_SIZE);
+        PayloadCodec.Encoded encoded = codec.encode(text);
+
+        assertEquals(PayloadCodec.GZIP, encoded.contentEncoding);
+        assertNotNull(encoded.payloadReference);
+        assertEquals(text, codec.decode(encoded.body, encoded.contentEncoding, encoded.payloadReference));
+    }
+
+    @Test
+    public void offloadsOnlyLargeBinaryPayloads() throws IOException {
+        PayloadCodec codec = new PayloadCodec(-1, blobStore);
+        assertNull(codec.offload(ByteBuffer.allocate(PayloadCodec.MAX_PAYLOAD_SIZE)));
+
+        byte[] bytes = new byte[PayloadCodec.MAX_PAYLOAD_SIZE + 1];
+        new Random(1).nextBytes(bytes);
+        String reference = codec.offload(ByteBuffer.wrap(bytes));
+        Payload payload = codec.decode(reference, null, reference, Payload.BYTES, null);
+
+        assertEquals(Payload.BYTES, payload.type());
+        assertEquals(ByteBuffer.wrap(bytes), payload.binary());
+    }
+
+    @Test(expected = IOException.class)
+    public void needsBlobStoreForReferences() throws IOException {
+        PayloadCodec.NONE.decode("reference", null, "reference");
+    }
+
+    @Test
+    public void countsUtf8Length() {
+        String text = "a\u00e4\u20ac\ud83d\ude00";
+        assertEquals(text.getBytes(StandardCharsets.UTF_8).length, PayloadCodec.utf8Length(text));
+    }
+
+    private static String repeat(String text, int times) {
+        StringBuilder builder = new StringBuilder(text.length() * times);
+        for (int i = 0; i < times; i++) {
+            builder.append(text);
+        }
+        return builder.toString();
+    }
+
+    private static String randomText(int length) {
+        Random random = new Random(7);
+        StringBuilder builder = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            builder.append((char) (' ' + random.nextInt(95)));
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,206 @@
+package com.aws.sample.amazonmqintegration.core;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Future;
+
+import javax.jms.JMSException;
+import javax.jms.Message;
+
+import org.apache.activemq.command.ActiveMQTextMessage;
+import org.junit.Test;
+
+import com.amazonaws.handlers.AsyncHandler;
+import com.amazonaws.services.sqs.AbstractAmazonSQSAsync;
+import com.amazonaws.services.sqs.model.BatchResultErrorEntry;
+import com.amazonaws.services.sqs.model.MessageAttributeValue;
+import com.amazonaws.services.sqs.model.SendMessageBatchRequest;
+import com.amazonaws.services.sqs.model.SendMessageBatchRequestEntry;
+import com.amazonaws.services.sqs.model.SendMessageBatchResult;
+import com.amazonaws.services.sqs.model.SendMessageBatchResultEntry;
+
+public class SqsSinkTest {
+
+    private final ScriptedSqs sqs = new ScriptedSqs();
+    private final SqsSink sink = new SqsSink(sqs, "queue", PayloadCodec.NONE, HeaderCodec.NONE);
+    private final RecordingCompletion completion = new RecordingCompletion();
+
+    @Test
+    public void sendsABatchInOneRequest() throws JMSException {
+        List<Message> batch = messages("a", "b", "c");
+
+        sink.forward(batch, completion);
+
+        assertEquals(Arrays.asList(Arrays.asList("a", "b", "c")), sqs.requests);
+        completion.assertCompleted(batch, Collections.emptyList());
+    }
+
+    @Test
+    public void splitsBatchesAt256KB() throws JMSException {
+        char[] text = new char[100_000];
+        Arrays.fill(text, 'x');
+        List<Message> batch = messages("a" + new String(text), "b" + new String(text), "c" + new String(text));
+
+        sink.forward(batch, completion);
+
+        assertEquals(2, sqs.requests.size());
+        assertEquals(2, sqs.requests.get(0).size());
+        assertEquals(1, sqs.requests.get(1).size());
+        completion.assertCompleted(batch, Collections.emptyList());
+    }
+
+    @Test
+    public void retriesOnlyFailedEntriesWhichAreNoSenderFaults() throws JMSException {
+        List<Message> batch = messages("a", "b", "c");
+        sqs.internalFailures.put("a", 1);
+        sqs.senderFaults.add("b");
+
+        sink.forward(batch, completion);
+
+        assertEquals(Arrays.asList(Arrays.asList("a", "b", "c"), Arrays.asList("a")), sqs.requests);
+        completion.assertCompleted(Arrays.asList(batch.get(0), batch.get(2)), Arrays.asList(batch.get(1)));
+    }
+
+    @Test
+    public void givesUpAfterThreeAttempts() throws JMSException {
+        List<Message> batch = messages("a", "b");
+        sqs.internalFailures.put("a", Integer.MAX_VALUE);
+
+        sink.forward(batch, completion);
+
+        assertEquals(Arrays.asList(Arrays.asList("a", "b"), Arrays.asList("a"), Arrays.asList("a")), sqs.requests);
+        completion.assertCompleted(Arrays.asList(batch.get(1)), Arrays.asList(batch.get(0)));
+    }
+
+    @Test
+    public void failsEveryEntryOfAFailedRequest() throws JMSException {
+        char[] text = new char[100_000];
+        Arrays.fill(text, 'x');
+        List<Message> batch = messages("a" + new String(text), "b" + new String(text), "c" + new String(text));
+        sqs.failedRequests = 1;
+
+        sink.forward(batch, completion);
+
+        // the second request still goes through
+        assertEquals(2, sqs.requests.size());
+        completion.assertCompleted(batch.subList(2, 3), batch.subList(0, 2));
+    }
+
+    @Test
+    public void sendsNamedPropertiesWhichAreNoFiniteNumbersAsString() throws JMSException {
+        SqsSink sink = new SqsSink(sqs, "queue", PayloadCodec.NONE, new HeaderCodec(Arrays.asList("count", "ratio", "nan", "infinity", "region")));
+        List<Message> batch = messages("a");
+        batch.get(0).setIntProperty("count", 3);
+        batch.get(0).setDoubleProperty("ratio", 0.5);
+        batch.get(0).setDoubleProperty("nan", Double.NaN);
+        batch.get(0).setFloatProperty("infinity", Float.NEGATIVE_INFINITY);
+        batch.get(0).setStringProperty("region", "eu");
+
+        sink.forward(batch, completion);
+
+        Map<String, MessageAttributeValue> attributes = sqs.entries.get(0).getMessageAttributes();
+        assertEquals("Number", attributes.get("count").getDataType());
+        assertEquals("Number", attributes.get("ratio").getDataType());
+        assertEquals("String", attributes.get("nan").getDataType());
+        assertEquals("NaN", attributes.get("nan").getStringValue());
+        assertEquals("String", attributes.get("infinity").getDataType());
+        assertEquals("-Infinity", attributes.get("infinity").getStringValue());
+        assertEquals("String", attributes.get("region").getDataType());
+    }
+
+    private static List<Message> messages(String... texts) throws JMSException {
+        List<Message> messages = new ArrayList<>();
+        for (String text : texts) {
+            ActiveMQTextMessage message = new ActiveMQTextMessage();
+            message.setText(text);
+            messages.add(message);
+        }
+        return messages;
+    }
+
+    // answers every request right away, an entry is known by its body without the x padding, it fails while it has internal failures left or always with a sender fault
+    private static class ScriptedSqs extends AbstractAmazonSQSAsync {
+
+        private final List<List<String>> requests = new ArrayList<>();
+        private final List<SendMessageBatchRequestEntry> entries = new ArrayList<>();
+        private final Map<String, Integer> internalFailures = new HashMap<>();
+        private final Set<String> senderFaults = new HashSet<>();
+        private int failedRequests;
+
+        @Override
+        public Future<SendMessageBatchResult> sendMessageBatchAsync(SendMessageBatchRequest request, AsyncHandler<SendMessageBatchRequest, SendMessageBatchResult> handler) {
+            List<String> bodies = new ArrayList<>();
+            for (SendMessageBatchRequestEntry entry : request.getEntries()) {
+                entries.add(entry);
+                bodies.add(entry.getMessageBody().replaceAll("x+$", ""));
+            }
+            requests.add(bodies);
+            if (failedRequests > 0) {
+                failedRequests--;
+                handler.onError(new IllegalStateException("throttled"));
+                return null;
+            }
+
+            SendMessageBatchResult result = new SendMessageBatchResult().withSuccessful(new ArrayList<>()).withFailed(new ArrayList<>());
+            for (int i = 0; i < bodies.size(); i++) {
+                String id = request.getEntries().get(i).getId();
+                Integer failures = internalFailures.get(bodies.get(i));
+                if (senderFaults.contains(bodies.get(i))) {
+                    result.getFailed().add(new BatchResultErrorEntry().withId(id).withSenderFault(Boolean.TRUE).withMessage("invalid"));
+                } else if (failures != null && failures > 0) {
+                    internalFailures.put(bodies.get(i), failures - 1);
+                    result.getFailed().add(new BatchResultErrorEntry().withId(id).withSenderFault(Boolean.FALSE).withMessage("internal"));
+                } else {
+                    result.getSuccessful().add(new SendMessageBatchResultEntry().withId(id));
+                }
+            }
+            handler.onSuccess(request, result);
+            return null;
+        }
+    }
+
+    private static class RecordingCompletion implements Sink.Completion {
+
+        private final List<Message> forwarded = new ArrayList<>();
+        private final List<Message> failed = new ArrayList<>();
+        private int done;
+
+        @Override
+        public synchronized void forwarded(Message msg) {
+            forwarded.add(msg);
+        }
+
+        @Override
+        public synchronized void failed(Message msg, String reason) {
+            failed.add(msg);
+        }
+
+        @Override
+        public synchronized void done() {
+            done++;
+        }
+
+        // every message is reported exactly once, and the batch is done once
+        synchronized void assertCompleted(List<Message> expectedForwarded, List<Message> expectedFailed) {
+            assertSame(expectedForwarded, forwarded);
+            assertSame(expectedFailed, failed);
+            assertEquals(1, done);
+        }
+
+        // messages have no identity of their own before the broker sends them
+        private static void assertSame(List<Message> expected, List<Message> actual) {
+            assertEquals(expected.size(), actual.size());
+            for (Message message : expected) {
+                assertEquals(1, actual.stream().filter(m -> m == message).count());
+            }
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package com.aws.sample.amazonmqintegration.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import javax.jms.Connection;
+import javax.jms.JMSException;
+import javax.jms.MessageProducer;
+import javax.jms.Session;
+import javax.jms.TextMessage;
+
+import org.apache.activemq.command.ActiveMQQueue;
+import org.apache.activemq.command.ActiveMQTextMessage;
+import org.junit.Test;
+
+import com.amazonaws.handlers.AsyncHandler;
+import com.amazonaws.services.sqs.AbstractAmazonSQSAsync;
+import com.amazonaws.services.sqs.model.BatchResultErrorEntry;
+import com.amazonaws.services.sqs.model.DeleteMessageBatchRequest;
+import com.amazonaws.services.sqs.model.DeleteMessageBatchRequestEntry;
+import com.amazonaws.services.sqs.model.DeleteMessageBatchResult;
+import com.amazonaws.services.sqs.model.DeleteMessageBatchResultEntry;
+import com.amazonaws.services.sqs.model.Message;
+import com.amazonaws.services.sqs.model.ReceiveMessageRequest;
+import com.amazonaws.services.sqs.model.ReceiveMessageResult;
+
+public class SqsSourceTest {
+
+    private static final long WAIT = TimeUnit.SECONDS.toMillis(5);
+
+    private final ScriptedSqs sqs = new ScriptedSqs();
+    private final ScriptedBroker broker = new ScriptedBroker();
+
+    @Test
+    public void deletesEveryConfirmedMessageOnceAndLeavesTheOthers() throws Exception {
+        sqs.batches.add(messages("a", "b", "c"));
+        sqs.batches.add(messages("d", "e"));
+        broker.refused.add("b");
+        SqsSource source = new SqsSource(sqs, "queue", 1, 4, 4).start("test", Collections.singletonList(broker.sink()));
+
+        awaitDeleted(4);
+        source.stop();
+
+        // b stays in the queue, SQS makes it visible again after its visibility timeout
+        assertEquals(Arrays.asList("a", "c", "d", "e"), broker.sent);
+        assertEquals(Arrays.asList("a", "c", "d", "e"), sqs.deleted);
+        assertEquals(2, sqs.deleteRequests.size());
+    }
+
+    @Test
+    public void retriesOnlyFailedDeletesWhichAreNoSenderFaults() throws Exception {
+        sqs.batches.add(messages("a", "b", "c"));
+        sqs.internalFailures.put("a", 1);
+        sqs.senderFaults.add("b");
+        SqsSource source = new SqsSource(sqs, "queue", 1, 4, 4).start("test", Collections.singletonList(broker.sink()));
+
+        awaitDeleted(2);
+        source.stop();
+
+        assertEquals(Arrays.asList(Arrays.asList("a", "b", "c"), Arrays.asList("a")), sqs.deleteRequests);
+        assertEquals(Arrays.asList("c", "a"), sqs.deleted);
+    }
+
+    @Test
+    public void givesUpDeletingAfterThreeAttempts() throws Exception {
+        sqs.batches.add(messages("a", "b"));
+        sqs.internalFailures.put("a", Integer.MAX_VALUE);
+        SqsSource source = new SqsSource(sqs, "queue", 1, 4, 4).start("test", Collections.singletonList(broker.sink()));
+
+        awaitDeleted(1);
+        source.stop();
+
+        assertEquals(Arrays.asList(Arrays.asList("a", "b"), Arrays.asList("a"), Arrays.asList("a")), sqs.deleteRequests);
+        assertEquals(Arrays.asList("b"), sqs.deleted);
+    }
+
+    @Test
+    public void holdsBackReceivingWhileDeletesAreInFlight() throws Exception {
+        for (int i = 0; i < 10; i++) {
+            sqs.batches.add(messages("m" + i));
+        }
+        sqs.deferDeletes = true;
+        // one batch waits for its delete, the worker holds the next one, the hand-off one more and the poller the last one received
+        SqsSource source = new SqsSource(sqs, "queue", 1, 1, 1).start("test", Collections.singletonList(broker.sink()));
+
+        long deadline = System.currentTimeMillis() + WAIT;
+        while (sqs.batches.size() > 6 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(200);
+        assertEquals(6, sqs.batches.size());
+        assertEquals(Arrays.asList("m0"), broker.sent);
+
+        // once the delete is done the worker forwards the next batch
+        runDeferredDelete();
+        awaitSent(2);
+        assertEquals(Arrays.asList("m0", "m1"), broker.sent);
+
+        sqs.deferDeletes = false;
+        runDeferredDelete();
+        awaitDeleted(10);
+        source.stop();
+
+        assertEquals(10, new HashSet<>(sqs.deleted).size());
+        assertEquals(10, sqs.deleted.size());
+    }
+
+    private void runDeferredDelete() throws InterruptedException {
+        Runnable delete = sqs.deferredDeletes.poll(WAIT, TimeUnit.MILLISECONDS);
+        assertNotNull("no delete in flight", delete);
+        delete.run();
+    }
+
+    private void awaitDeleted(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + WAIT;
+        while (sqs.deleted.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue("deleted " + sqs.deleted, sqs.deleted.size() >= count);
+    }
+
+    private void awaitSent(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + WAIT;
+        while (broker.sent.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    // the body of every message is its receipt handle as well
+    private static List<Message> messages(String... bodies) {
+        List<Message> messages = new ArrayList<>();
+        for (String body : bodies) {
+            messages.add(new Message().withMessageId(body).withReceiptHandle(body).withBody(body).withMessageAttributes(new HashMap<>()));
+        }
+        return messages;
+    }
+
+    // hands out one batch per receive, a delete fails while the receipt handle has internal failures left or always with a sender fault
+    private static class ScriptedSqs extends AbstractAmazonSQSAsync {
+
+        private final BlockingQueue<List<Message>> batches = new LinkedBlockingQueue<>();
+        private final List<List<String>> deleteRequests = Collections.synchronizedList(new ArrayList<>());
+        private final List<String> deleted = Collections.synchronizedList(new ArrayList<>());
+        private final Map<String, Integer> internalFailures = new HashMap<>();
+        private final Set<String> senderFaults = new HashSet<>();
+        private final BlockingQueue<Runnable> deferredDeletes = new LinkedBlockingQueue<>();
+        private volatile boolean deferDeletes;
+
+        @Override
+        public ReceiveMessageResult receiveMessage(ReceiveMessageRequest request) {
+            try {
+                List<Message> batch = batches.poll(10, TimeUnit.MILLISECONDS);
+                return new ReceiveMessageResult().withMessages(batch != null ? batch : new ArrayList<>());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public Future<DeleteMessageBatchResult> deleteMessageBatchAsync(DeleteMessageBatchRequest request, AsyncHandler<DeleteMessageBatchRequest, DeleteMessageBatchResult> handler) {
+            Runnable delete = () -> handler.onSuccess(request, delete(request));
+            if (deferDeletes) {
+                deferredDeletes.add(delete);
+            } else {
+                delete.run();
+            }
+            return null;
+        }
+
+        private synchronized DeleteMessageBatchResult delete(DeleteMessageBatchRequest request) {
+            List<String> handles = new ArrayList<>();
+            DeleteMessageBatchResult result = new DeleteMessageBatchResult().withSuccessful(new ArrayList<>()).withFailed(new ArrayList<>());
+            for (DeleteMessageBatchRequestEntry entry : request.getEntries()) {
+                String handle = entry.getReceiptHandle();
+                handles.add(handle);
+                Integer failures = internalFailures.get(handle);
+                if (senderFaults.contains(handle)) {
+                    result.getFailed().add(new BatchResultErrorEntry().withId(entry.getId()).withSenderFault(Boolean.TRUE).withMessage("receipt handle is invalid"));
+                } else if (failures != null && failures > 0) {
+                    internalFailures.put(handle, failures - 1);
+                    result.getFailed().add(new BatchResultErrorEntry().withId(entry.getId()).withSenderFault(Boolean.FALSE).withMessage("internal"));
+                } else {
+                    result.getSuccessful().add(new DeleteMessageBatchResultEntry().withId(entry.getId()));
+                    deleted.add(handle);
+                }
+            }
+            deleteRequests.add(handles);
+            return result;
+        }
+    }
+
+    // a connection whose producer confirms every send right away, except for the refused texts
+    private static class ScriptedBroker {
+
+        private final List<String> sent = Collections.synchronizedList(new ArrayList<>());
+        private final Set<String> refused = new HashSet<>();
+
+        JmsSink sink() throws JMSException {
+            MessageProducer producer = proxy(MessageProducer.class, (method, args) -> {
+                switch (method) {
+                    case "getDeliveryMode":
+                        return javax.jms.DeliveryMode.PERSISTENT;
+                    case "getPriority":
+                        return 4;
+                    case "getTimeToLive":
+                        return 0L;
+                    case "send":
+                        String text = ((TextMessage) args[0]).getText();
+                        if (refused.contains(text)) {
+                            throw new JMSException("refused " + text);
+                        }
+                        sent.add(text);
+                        return null;
+                    default:
+                        return null;
+                }
+            });
+            Session session = proxy(Session.class, (method, args) -> {
+                switch (method) {
+                    case "createQueue":
+                        return new ActiveMQQueue((String) args[0]);
+                    case "createProducer":
+                        return producer;
+                    case "createTextMessage":
+                        ActiveMQTextMessage message = new ActiveMQTextMessage();
+                        message.setText((String) args[0]);
+                        return message;
+                    default:
+                        return null;
+                }
+            });
+            Connection connection = proxy(Connection.class, (method, args) -> "createSession".equals(method) ? session : null);
+            return JmsSink.toQueue(connection, "queue");
+        }
+
+        private interface Handler {
+
+            Object invoke(String method, Object[] args) throws JMSException;
+        }
+
+        private static <T> T proxy(Class<T> type, Handler handler) {
+            return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, (proxy, method, args) -> handler.invoke(method.getName(), args)));
+        }
+    }
+}